@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: BenchmarkBot.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import javax.security.auth.login.LoginException;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.JDABuilder;
+
+/**
+ * <i>jda-factory-class</i> of the benchmarks<br>
+ * The benchmarks run against {@link OfflineDiscord} so they do not need a bot token or network access.
+ */
+public final class BenchmarkBot {
+
+	private BenchmarkBot() {
+		//prevent instantiation
+	}
+	/**
+	 * creates the {@link JDA} instance connected to the offline stand-in
+	 * @return the {@link JDA} instance
+	 * @throws LoginException if JDA cannot log in
+	 * @throws InterruptedException if the current thread is interrupted while waiting until JDA is ready
+	 */
+	public static JDA createJDA() throws LoginException, InterruptedException {
+		return OfflineDiscord.configure(new JDABuilder("benchmark")).build().awaitReady();
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageFixtures.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.User;
+
+/**
+ * synthetic {@link Message} objects that are not backed by Discord<br>
+ * Only the methods used when scanning and logging messages are supported.
+ */
+final class MessageFixtures {
+
+	private static final long DISCORD_EPOCH=1420070400000L;
+	private static final int FIELDS_PER_EMBED=10;
+
+	/**
+	 * the shape of the embeds of the messages
+	 */
+	enum EmbedShape{
+		/**
+		 * messages with content only
+		 */
+		NONE,
+		/**
+		 * messages with an embed with a title and a description
+		 */
+		SIMPLE,
+		/**
+		 * messages with an embed with a title, a description and several fields
+		 */
+		FIELDS
+	}
+
+	private MessageFixtures() {
+		//prevent instantiation
+	}
+	/**
+	 * creates a message history that has been sent after the tests have been started
+	 * @param channel the {@link TextChannel} of the messages
+	 * @param author the author of the messages
+	 * @param size the number of messages
+	 * @param shape the shape of the embeds
+	 * @return the messages, newest first
+	 */
+	static List<Message> createHistory(TextChannel channel,User author,int size,EmbedShape shape) {
+		//one second in the future so the messages are always considered to be sent during the tests
+		long firstId=(System.currentTimeMillis()+1000-DISCORD_EPOCH)<<22;
+		List<Message> history=new ArrayList<>(size);
+		for (int i = size-1; i >= 0; i--) {
+			history.add(createMessage(firstId+i, channel, author, "message number "+i, createEmbeds(i, shape)));
+		}
+		return history;
+	}
+	private static List<MessageEmbed> createEmbeds(int num,EmbedShape shape) {
+		if(shape==EmbedShape.NONE) {
+			return Collections.emptyList();
+		}
+		EmbedBuilder builder=new EmbedBuilder()
+				.setTitle("title "+num)
+				.setDescription("description of embed "+num);
+		if(shape==EmbedShape.FIELDS) {
+			for (int i = 0; i < FIELDS_PER_EMBED; i++) {
+				builder.addField("field "+i, "value "+i+" of embed "+num, i%2==0);
+			}
+		}
+		return Collections.singletonList(builder.build());
+	}
+	static Message createMessage(long id,TextChannel channel,User author,String content,List<MessageEmbed> embeds) {
+		return (Message) Proxy.newProxyInstance(Message.class.getClassLoader(), new Class<?>[] {Message.class}, (proxy,method,args)->{
+			switch(method.getName()) {
+			case "getIdLong":
+				return id;
+			case "getId":
+				return Long.toUnsignedString(id);
+			case "getContentRaw":
+			case "getContentDisplay":
+			case "getContentStripped":
+				return content;
+			case "getEmbeds":
+				return embeds;
+			case "getAuthor":
+				return author;
+			case "getChannel":
+			case "getTextChannel":
+				return channel;
+			case "getGuild":
+				return channel.getGuild();
+			case "getJDA":
+				return channel.getJDA();
+			case "isFromGuild":
+				return true;
+			case "isEdited":
+				return false;
+			case "hashCode":
+				return Long.hashCode(id);
+			case "equals":
+				return proxy==args[0];
+			case "toString":
+				return "M:"+author+":"+content+"("+id+")";
+			default:
+				throw new UnsupportedOperationException(method.getName()+" is not supported by synthetic messages");
+			}
+		});
+	}
+}
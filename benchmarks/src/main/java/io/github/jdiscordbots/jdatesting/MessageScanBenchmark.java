@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageScanBenchmark.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.jdiscordbots.jdatesting.MessageFixtures.EmbedShape;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+
+/**
+ * benchmarks of the work that is done for every poll when awaiting a message<br>
+ * Every invocation scans a whole message history without finding a match, like a poll before the bot has responded.
+ * The allocation rate can be measured using <code>-prof gc</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageScanBenchmark {
+
+	@Param({"10", "100"})
+	public int historySize;
+
+	@Param({"NONE", "SIMPLE", "FIELDS"})
+	public EmbedShape embedShape;
+
+	private TextChannel channel;
+	private List<Message> history;
+	private TestContext context;
+	private TestContext loggingContext;
+	private volatile String lastLog;
+	private final Predicate<Message> missingField=msg->TestUtils.hasEmbedField(msg, "missing", "field");
+	private final Predicate<Message> missingContent=msg->"missing".equals(msg.getContentRaw());
+	private final MessageMatcher missingFieldMatcher=new MessageMatcherBuilder().addEmbedField("missing", "field").build();
+
+	@Setup
+	public void setup() {
+		channel=TestUtils.getTestingChannel();
+		history=MessageFixtures.createHistory(channel, TestUtils.getJDA().getSelfUser(), historySize, embedShape);
+		context=new TestContext(channel);
+		loggingContext=new TestContext(channel);
+		loggingContext.setLogger(log->lastLog=log);
+	}
+	@Benchmark
+	public Message scanContent() {
+		return context.findMessage(channel, history, missingContent);
+	}
+	@Benchmark
+	public Message scanEmbedFields() {
+		return context.findMessage(channel, history, missingField);
+	}
+	@Benchmark
+	public Message scanEmbedFieldsWithMatcher() {
+		return context.findMessage(channel, history, missingFieldMatcher);
+	}
+	@Benchmark
+	public Message scanEmbedFieldsWithLogging() {
+		return loggingContext.findMessage(channel, history, missingField);
+	}
+	@Benchmark
+	public void hasEmbed(Blackhole blackhole) {
+		for (Message msg : history) {
+			blackhole.consume(TestUtils.hasEmbed(msg, "missing", "embed"));
+		}
+	}
+	@Benchmark
+	public String log() {
+		for (Message msg : history) {
+			loggingContext.log(msg);
+		}
+		return lastLog;
+	}
+}
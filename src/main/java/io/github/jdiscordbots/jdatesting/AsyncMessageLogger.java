@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: AsyncMessageLogger.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MessageLogger} that passes events to another {@link MessageLogger} in a background thread<br>
+ * All asynchronous loggers share one thread, so every logger receives its events in order.
+ * The thread is stopped after the remaining events have been logged when the tests are done.
+ * @see MessageLogger#async(MessageLogger)
+ */
+final class AsyncMessageLogger implements MessageLogger {
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS=5;
+	private static ExecutorService executor=null;
+
+	private final MessageLogger delegate;
+
+	AsyncMessageLogger(MessageLogger delegate) {
+		this.delegate=delegate;
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if(executor==null) {
+			executor=Executors.newSingleThreadExecutor(r->{
+				Thread t=new Thread(r, "MessageLogger");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return executor;
+	}
+	/**
+	 * stops the background thread after all events that have already been passed to asynchronous loggers have been logged<br>
+	 * Events that are logged afterwards are passed to the loggers in the calling thread.
+	 * @throws InterruptedException if the current thread is interrupted while waiting until the events have been logged
+	 */
+	static void shutdown() throws InterruptedException {
+		ExecutorService toShutdown;
+		synchronized(AsyncMessageLogger.class) {
+			toShutdown=executor;
+			if(toShutdown==null) {
+				return;
+			}
+			toShutdown.shutdown();
+		}
+		toShutdown.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return delegate.isEnabled();
+	}
+
+	@Override
+	public void log(MessageLogEvent event) {
+		try {
+			getExecutor().execute(()->delegate.log(event));
+		}catch(RejectedExecutionException e) {
+			//the tests are done
+			delegate.log(event);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: AwaitResult.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+
+/**
+ * result of awaiting several messages at once<br>
+ * The messages are stored in the order of the criteria they have been awaited with.
+ * When awaiting any of several messages, only the message that has been found is stored. The other criteria are not awaited any more and not reported as timed out.
+ * @see TestContext#awaitAll(TextChannel, List)
+ * @see TestContext#awaitAny(TextChannel, List)
+ */
+public final class AwaitResult {
+
+	private final List<Message> messages;
+	private final boolean timedOut;
+
+	AwaitResult(Message[] messages,boolean timedOut) {
+		this.messages=Collections.unmodifiableList(Arrays.asList(messages));
+		this.timedOut=timedOut;
+	}
+	/**
+	 * gets the messages that have been found
+	 * @return an unmodifiable {@link List} containing the {@link Message} for every criteria at the same index or <code>null</code> if no message has been found for it
+	 */
+	public List<Message> getMessages() {
+		return messages;
+	}
+	/**
+	 * gets the message that has been found for a criteria
+	 * @param index the index of the criteria
+	 * @return the {@link Message} or <code>null</code> if no message has been found for the criteria
+	 */
+	public Message getMessage(int index) {
+		return messages.get(index);
+	}
+	/**
+	 * gets the first message that has been found
+	 * @return the first {@link Message} in the order of the criteria or <code>null</code> if no message has been found
+	 */
+	public Message getFirstMessage() {
+		for (Message msg : messages) {
+			if(msg!=null) {
+				return msg;
+			}
+		}
+		return null;
+	}
+	/**
+	 * checks if the await has been successful<br>
+	 * When awaiting all messages, a message needs to be found for every criteria, when awaiting any message, one message is enough.
+	 * @return <code>true</code> if enough messages have been found before the time expired, else <code>false</code>
+	 */
+	public boolean isComplete() {
+		return !timedOut;
+	}
+	/**
+	 * gets the indices of all criteria no message has been found for until the time expired<br>
+	 * If the await has been successful, no criteria timed out.
+	 * @return a {@link List} of the indices in ascending order
+	 */
+	public List<Integer> getTimedOut() {
+		List<Integer> indices=new ArrayList<>();
+		for (int i = 0; i < messages.size(); i++) {
+			if(isTimedOut(i)) {
+				indices.add(i);
+			}
+		}
+		return indices;
+	}
+	/**
+	 * checks if no message has been found for a criteria until the time expired<br>
+	 * Criteria that have not been awaited any more because a message has been found for another criteria (when awaiting any message) did not time out.
+	 * @param index the index of the criteria
+	 * @return <code>true</code> if no message has been found before the time expired, else <code>false</code>
+	 * @see AwaitResult#getTimedOut()
+	 */
+	public boolean isTimedOut(int index) {
+		return timedOut&&messages.get(index)==null;
+	}
+	@Override
+	public String toString() {
+		return "AwaitResult[messages="+messages+", timedOut="+timedOut+"]";
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: ChannelLease.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.dv8tion.jda.api.entities.TextChannel;
+
+/**
+ * exclusive access to one of the testing channels<br>
+ * As long as the lease is not closed, no other test can lease the same channel.
+ * A lease should be closed when the test is done, preferably using try-with-resources.
+ * @see TestUtils#leaseChannel()
+ */
+public final class ChannelLease implements AutoCloseable {
+	private final TextChannel channel;
+	private final TestContext context;
+	private final BlockingQueue<TextChannel> pool;
+	private final AtomicBoolean closed=new AtomicBoolean();
+	
+	ChannelLease(TextChannel channel,BlockingQueue<TextChannel> pool) {
+		this.channel=channel;
+		this.context=new TestContext(channel);
+		this.pool=pool;
+	}
+	/**
+	 * gets the leased {@link TextChannel}
+	 * @return the {@link TextChannel}
+	 */
+	public TextChannel getChannel() {
+		return channel;
+	}
+	/**
+	 * gets a {@link TestContext} that sends and awaits messages in the leased channel<br>
+	 * The settings of the context are copied from the default context when the channel is leased.
+	 * @return the {@link TestContext}
+	 * @see TestUtils#getDefaultContext()
+	 */
+	public TestContext getContext() {
+		return context;
+	}
+	/**
+	 * returns the channel to the pool so it can be leased by other tests<br>
+	 * Closing a lease more than once has no effect.
+	 */
+	@Override
+	public void close() {
+		if(closed.compareAndSet(false, true)) {
+			pool.offer(channel);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: InteractionRecorder.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.MessageEmbed.Field;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+/**
+ * appends commands and the responses of the bot to a file with one JSON object per line<br>
+ * The lines are written by a background thread so recording does not block the threads of JDA.
+ * The file is flushed whenever no more lines are waiting and when the recorder is closed.
+ * @see RecordedInteraction
+ * @see InteractionReplay
+ */
+final class InteractionRecorder implements Closeable {
+
+	//marks the end of the recording, compared by identity
+	private static final String END=new String();
+
+	private final BufferedWriter writer;
+	private final BlockingQueue<String> lines=new LinkedBlockingQueue<>();
+	private final Thread writerThread;
+
+	InteractionRecorder(Path file) throws IOException {
+		writer=Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		writerThread=new Thread(this::write, "InteractionRecorder");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+	/**
+	 * writes the recorded lines until the recorder is closed
+	 */
+	private void write() {
+		try {
+			String line;
+			while((line=lines.take())!=END) {
+				try {
+					writer.write(line);
+					writer.newLine();
+					if(lines.isEmpty()) {
+						writer.flush();
+					}
+				}catch(IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	/**
+	 * appends a command and its response to the recording
+	 * @param command the content of the command after the prefix
+	 * @param response the response of the bot
+	 * @param latencyNanos the time between sending the command and receiving the response in nanoseconds
+	 */
+	void record(String command,Message response,long latencyNanos) {
+		DataArray embeds=DataArray.empty();
+		for (MessageEmbed embed : response.getEmbeds()) {
+			DataArray fields=DataArray.empty();
+			for (Field field : embed.getFields()) {
+				fields.add(DataObject.empty().put("name", field.getName()).put("value", field.getValue()));
+			}
+			embeds.add(DataObject.empty().put("title", embed.getTitle()).put("description", embed.getDescription()).put("fields", fields));
+		}
+		DataObject interaction=DataObject.empty()
+				.put("command", command)
+				.put("channel", response.getChannel().getId())
+				.put("timestamp", System.currentTimeMillis())
+				.put("latency", latencyNanos)
+				.put("author", response.getAuthor().getId())
+				.put("content", response.getContentRaw())
+				.put("embeds", embeds)
+				.put("rendered", new MessageLogEvent(response).render());
+		lines.add(interaction.toString());
+	}
+	/**
+	 * writes all recorded lines that are still waiting and closes the file
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		lines.add(END);
+		try {
+			writerThread.join();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writer.close();
+	}
+}
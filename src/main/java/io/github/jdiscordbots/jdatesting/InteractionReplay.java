@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: InteractionReplay.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+/**
+ * replays interactions that have been recorded using the <i>interaction-recording</i> property and compares the responses of the bot with the recorded responses<br>
+ * The recordings are read line by line so they do not need to fit into memory.
+ * @see TestUtils
+ * @see RecordedInteraction
+ */
+public final class InteractionReplay {
+
+	private final TestContext context;
+
+	/**
+	 * creates a replay that uses the default {@link TestContext}
+	 * @see TestUtils#getDefaultContext()
+	 */
+	public InteractionReplay() {
+		this(TestUtils.getDefaultContext());
+	}
+	/**
+	 * creates a replay that uses a specific {@link TestContext}<br>
+	 * The commands are sent in the channel of the context, the timeout of the context is used as maximum time to wait for a response.
+	 * @param context the {@link TestContext}
+	 */
+	public InteractionReplay(TestContext context) {
+		this.context=context;
+	}
+	/**
+	 * reads all interactions of a recording in the order they have been recorded
+	 * @param recording the file containing the recording
+	 * @param consumer a function that is called with every interaction
+	 * @throws IOException if the recording cannot be read
+	 */
+	public static void read(Path recording,Consumer<RecordedInteraction> consumer) throws IOException {
+		try(BufferedReader reader=Files.newBufferedReader(recording, StandardCharsets.UTF_8)){
+			String line;
+			while((line=reader.readLine())!=null) {
+				if(!line.trim().isEmpty()) {
+					consumer.accept(new RecordedInteraction(DataObject.fromJson(line)));
+				}
+			}
+		}
+	}
+	/**
+	 * sends every recorded command again and checks if the bot responds in the same way<br>
+	 * The first message of the bot after a command is used as response.
+	 * Responses are compared using their content and their embeds including all fields.
+	 * The replayed interactions are recorded again if <i>interaction-recording</i> is set, so it should not point to the replayed file.
+	 * @param recording the file containing the recording
+	 * @return the results of the replay
+	 * @throws IOException if the recording cannot be read
+	 */
+	public ReplayReport replay(Path recording) throws IOException {
+		List<String> mismatches=new ArrayList<>();
+		int[] replayed= {0};
+		read(recording, interaction->{
+			replayed[0]++;
+			String mismatch=replay(interaction);
+			if(mismatch!=null) {
+				mismatches.add(mismatch);
+			}
+		});
+		return new ReplayReport(replayed[0], mismatches);
+	}
+	/**
+	 * sends a recorded command and compares the response with the recorded response
+	 * @param interaction the recorded interaction
+	 * @return a description of the difference or <code>null</code> if the responses are equal
+	 */
+	private String replay(RecordedInteraction interaction) {
+		Message response;
+		try {
+			response=context.expectReply(interaction.getCommand(), msg->true).join();
+		}catch(CompletionException e) {
+			return interaction.getCommand()+": could not be sent ("+e.getCause()+")";
+		}
+		if(response==null) {
+			return interaction.getCommand()+": expected "+interaction.getRendered()+" but there was no response";
+		}
+		String actual=new MessageLogEvent(response).render();
+		if(!actual.equals(interaction.getRendered())) {
+			return interaction.getCommand()+": expected "+interaction.getRendered()+" but was "+actual;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: InteractionTrace.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+/**
+ * spans of the work done by the testing system, used for finding out where the time of slow tests is spent<br>
+ * The following spans are recorded:
+ * <ul>
+ * 	<li><i>send</i> sending a message including the time it waited in the {@link RestScheduler}</li>
+ * 	<li><i>fetch</i> retrieving the message history while awaiting a message</li>
+ * 	<li><i>match</i> testing retrieved messages</li>
+ * 	<li><i>await</i> awaiting a message from start to end, gaps between <i>fetch</i> spans are poll intervals</li>
+ * 	<li><i>cleanup</i> deleting messages</li>
+ * </ul>
+ * Every span is tagged with the channel, the command (if known) and the name of the test that has been set by the thread starting the span.
+ * <i>fetch</i> and <i>match</i> spans of an await are children of its <i>await</i> span.<br>
+ * Tracing is enabled if the <code>jda-tests.properties</code> contain a <i>trace-file</i> or if it is enabled using {@link InteractionTrace#setEnabled(boolean)}.
+ * Spans are written to the <i>trace-file</i> by a background thread as soon as they are ended, only the most recent spans are kept in memory.
+ * @see TestUtils#getTrace()
+ */
+public final class InteractionTrace {
+
+	private static final int MAX_SPANS=10_000;
+	private static final int MAX_SPANS_PER_OTLP_LINE=1000;
+	private static final Span NOOP=new Span(null, null, 0, null, null, 0);
+	//marks the end of the trace file, compared by identity
+	private static final Span END=new Span(null, null, 0, null, null, 0);
+
+	private final Queue<Span> spans=new ConcurrentLinkedQueue<>();
+	private final AtomicInteger spanCount=new AtomicInteger();
+	private final AtomicLong dropped=new AtomicLong();
+	private final Map<String, String> traceIds=new ConcurrentHashMap<>();
+	private final ThreadLocal<String> testName=new ThreadLocal<>();
+	private final long baseNanos=System.nanoTime();
+	private final long baseEpochNanos=System.currentTimeMillis()*1_000_000;
+	private final BlockingQueue<Span> pending=new LinkedBlockingQueue<>();
+	private final BufferedWriter writer;
+	private final boolean otlpFile;
+	private final Thread writerThread;
+	private volatile boolean writing;
+	private volatile boolean enabled;
+
+	/**
+	 * creates a trace
+	 * @param file the file spans should be written to as soon as they are ended or <code>null</code> if tracing should be disabled and spans should only be kept in memory
+	 * @throws IOException if the file cannot be created
+	 */
+	InteractionTrace(Path file) throws IOException {
+		this.enabled=file!=null;
+		if(file==null) {
+			writer=null;
+			otlpFile=false;
+			writerThread=null;
+		}else {
+			writer=Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+			otlpFile=isOtlpFile(file);
+			writing=true;
+			writerThread=new Thread(this::write, "InteractionTrace");
+			writerThread.setDaemon(true);
+			writerThread.start();
+		}
+	}
+	/**
+	 * checks if spans are recorded
+	 * @return <code>true</code> if tracing is enabled, else <code>false</code>
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+	/**
+	 * enables or disables recording spans
+	 * @param enabled <code>true</code> if spans should be recorded
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled=enabled;
+	}
+	/**
+	 * sets the name of the test running in the current thread<br>
+	 * All spans started by the current thread are tagged with this name until another name is set.
+	 * Spans that are started in other threads on behalf of the current thread (e.g. when messages are awaited asynchronously or deleted in callbacks) are tagged with this name as well.
+	 * @param name the name of the test or <code>null</code> if no test is running
+	 */
+	public void setTestName(String name) {
+		if(name==null) {
+			testName.remove();
+		}else {
+			testName.set(name);
+		}
+	}
+	/**
+	 * gets the name of the test running in the current thread so it can be passed to spans started in other threads
+	 * @return the name of the test or <code>null</code> if it has not been set
+	 * @see InteractionTrace#setTestName(String)
+	 */
+	String getTestName() {
+		return testName.get();
+	}
+	/**
+	 * gets the number of spans that are not kept in memory any more because too many spans have been recorded<br>
+	 * Dropped spans are still written to the <i>trace-file</i>.
+	 * @return the number of dropped spans
+	 */
+	public long getDroppedSpans() {
+		return dropped.get();
+	}
+	/**
+	 * removes all spans kept in memory
+	 */
+	public void clear() {
+		spans.clear();
+		spanCount.set(0);
+		dropped.set(0);
+	}
+	/**
+	 * starts a span
+	 * @param name the name of the span, e.g. <code>send</code>
+	 * @param tc the {@link TextChannel} the span belongs to or <code>null</code> if it does not belong to a channel
+	 * @param message the content of the message containing the command the span belongs to or <code>null</code> if it is not known
+	 * @return the {@link Span} that needs to be ended, does nothing if tracing is disabled
+	 */
+	Span start(String name,TextChannel tc,String message) {
+		return start(name, tc, message, testName.get());
+	}
+	/**
+	 * starts a span on behalf of a test that may run in another thread
+	 * @param name the name of the span, e.g. <code>send</code>
+	 * @param tc the {@link TextChannel} the span belongs to or <code>null</code> if it does not belong to a channel
+	 * @param message the content of the message containing the command the span belongs to or <code>null</code> if it is not known
+	 * @param test the name of the test as returned by {@link InteractionTrace#getTestName()} in the thread of the test
+	 * @return the {@link Span} that needs to be ended, does nothing if tracing is disabled
+	 */
+	Span start(String name,TextChannel tc,String message,String test) {
+		return start(name, tc, message, test, null);
+	}
+	/**
+	 * starts a span that is nested in another span
+	 * @param name the name of the span, e.g. <code>fetch</code>
+	 * @param tc the {@link TextChannel} the span belongs to or <code>null</code> if it does not belong to a channel
+	 * @param message the content of the message containing the command the span belongs to or <code>null</code> if it is not known
+	 * @param test the name of the test as returned by {@link InteractionTrace#getTestName()} in the thread of the test
+	 * @param parent the span the new span is nested in or <code>null</code> if it is not nested
+	 * @return the {@link Span} that needs to be ended, does nothing if tracing is disabled
+	 */
+	Span start(String name,TextChannel tc,String message,String test,Span parent) {
+		if(!enabled) {
+			return NOOP;
+		}
+		return new Span(this, name, tc==null?0:tc.getIdLong(), message==null?null:getCommand(message), test, parent==null||parent.trace==null?0:parent.spanId);
+	}
+	private void add(Span span) {
+		if(writing) {
+			pending.add(span);
+		}
+		spans.add(span);
+		//the oldest span is dropped so the memory used does not grow with the duration of the tests
+		if(spanCount.incrementAndGet()>MAX_SPANS&&spans.poll()!=null) {
+			spanCount.decrementAndGet();
+			dropped.incrementAndGet();
+		}
+	}
+	/**
+	 * gets the name of the command of a message
+	 * @param content the content of the message
+	 * @return the name of the command or <code>null</code> if the message is not a command
+	 */
+	private static String getCommand(String content) {
+		String prefix=TestUtils.getPrefix();
+		return prefix!=null&&content.startsWith(prefix)?LatencyStatistics.getCommandName(content.substring(prefix.length())):null;
+	}
+	/**
+	 * creates a JSON representation of the spans kept in memory in the Chrome trace event format<br>
+	 * It can be opened using <code>chrome://tracing</code> or <a href="https://ui.perfetto.dev">Perfetto</a>.
+	 * Every thread is shown as a separate track.
+	 * @return the spans in the Chrome trace event format
+	 */
+	public String toChromeTrace() {
+		DataArray events=DataArray.empty();
+		Map<Long, String> threads=new LinkedHashMap<>();
+		for (Span span : spans) {
+			threads.putIfAbsent(span.threadId, span.threadName);
+			events.add(toChromeEvent(span));
+		}
+		for (Map.Entry<Long, String> thread : threads.entrySet()) {
+			events.add(toThreadNameEvent(thread.getKey(), thread.getValue()));
+		}
+		return DataObject.empty().put("traceEvents", events).put("displayTimeUnit", "ms").toString();
+	}
+	private DataObject toChromeEvent(Span span) {
+		return DataObject.empty()
+				.put("name", span.name)
+				.put("cat", "jda-testing-system")
+				.put("ph", "X")
+				.put("ts", (span.startNanos-baseNanos)/1000.0)
+				.put("dur", (span.endNanos-span.startNanos)/1000.0)
+				.put("pid", 1)
+				.put("tid", span.threadId)
+				.put("args", span.getAttributes());
+	}
+	private static DataObject toThreadNameEvent(long threadId,String threadName) {
+		return DataObject.empty()
+				.put("name", "thread_name")
+				.put("ph", "M")
+				.put("pid", 1)
+				.put("tid", threadId)
+				.put("args", DataObject.empty().put("name", threadName));
+	}
+	/**
+	 * creates a JSON representation of the spans kept in memory in the OpenTelemetry protocol (OTLP) JSON format<br>
+	 * The spans of every test share a trace ID.
+	 * @return the spans as OTLP JSON
+	 */
+	public String toOtlp() {
+		DataArray otlpSpans=DataArray.empty();
+		for (Span span : spans) {
+			otlpSpans.add(toOtlpSpan(span));
+		}
+		return toOtlpRequest(otlpSpans).toString();
+	}
+	private DataObject toOtlpSpan(Span span) {
+		String traceId=traceIds.computeIfAbsent(span.test==null?"":span.test, test->randomHex(32));
+		DataArray attributes=DataArray.empty();
+		DataObject tags=span.getAttributes();
+		for (String key : tags.keys()) {
+			attributes.add(DataObject.empty().put("key", key).put("value", DataObject.empty().put("stringValue", tags.getString(key))));
+		}
+		attributes.add(DataObject.empty().put("key", "thread.name").put("value", DataObject.empty().put("stringValue", span.threadName)));
+		DataObject otlpSpan=DataObject.empty()
+				.put("traceId", traceId)
+				.put("spanId", toHex(span.spanId))
+				.put("name", span.name)
+				.put("kind", 1)
+				.put("startTimeUnixNano", Long.toString(baseEpochNanos+span.startNanos-baseNanos))
+				.put("endTimeUnixNano", Long.toString(baseEpochNanos+span.endNanos-baseNanos))
+				.put("attributes", attributes);
+		if(span.parentId!=0) {
+			otlpSpan.put("parentSpanId", toHex(span.parentId));
+		}
+		return otlpSpan;
+	}
+	private static DataObject toOtlpRequest(DataArray otlpSpans) {
+		DataObject resource=DataObject.empty().put("attributes", DataArray.empty()
+				.add(DataObject.empty().put("key", "service.name").put("value", DataObject.empty().put("stringValue", "jda-testing-system"))));
+		DataObject scopeSpans=DataObject.empty()
+				.put("scope", DataObject.empty().put("name", "jda-testing-system"))
+				.put("spans", otlpSpans);
+		return DataObject.empty().put("resourceSpans", DataArray.empty()
+				.add(DataObject.empty().put("resource", resource).put("scopeSpans", DataArray.empty().add(scopeSpans))));
+	}
+	private static String randomHex(int length) {
+		StringBuilder sb=new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(Character.forDigit(ThreadLocalRandom.current().nextInt(16), 16));
+		}
+		return sb.toString();
+	}
+	private static String toHex(long id) {
+		String hex=Long.toHexString(id);
+		StringBuilder sb=new StringBuilder(16);
+		for (int i = hex.length(); i < 16; i++) {
+			sb.append('0');
+		}
+		return sb.append(hex).toString();
+	}
+	private static boolean isOtlpFile(Path file) {
+		return file.getFileName().toString().endsWith(".otlp.json");
+	}
+	/**
+	 * writes the spans kept in memory to a file<br>
+	 * If the name of the file ends with <code>.otlp.json</code>, the OTLP JSON format is used, else the Chrome trace event format.
+	 * @param file the file
+	 * @throws IOException if the file cannot be written
+	 * @see InteractionTrace#toChromeTrace()
+	 * @see InteractionTrace#toOtlp()
+	 */
+	public void export(Path file) throws IOException {
+		String content=isOtlpFile(file)?toOtlp():toChromeTrace();
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+	/**
+	 * writes ended spans to the <i>trace-file</i> until the trace is closed<br>
+	 * Chrome traces are written as a JSON array of events that is completed when the trace is closed.
+	 * OTLP traces are written with one OTLP JSON request per line like the file exporter of the OpenTelemetry Collector does.
+	 */
+	private void write() {
+		Map<Long, String> threads=new LinkedHashMap<>();
+		List<Span> batch=new ArrayList<>();
+		boolean first=true;
+		try {
+			if(!otlpFile) {
+				writer.write('[');
+			}
+			boolean ended=false;
+			while(!ended) {
+				batch.add(pending.take());
+				pending.drainTo(batch, MAX_SPANS_PER_OTLP_LINE-1);
+				ended=batch.remove(END);
+				if(otlpFile) {
+					if(!batch.isEmpty()) {
+						DataArray otlpSpans=DataArray.empty();
+						for (Span span : batch) {
+							otlpSpans.add(toOtlpSpan(span));
+						}
+						writer.write(toOtlpRequest(otlpSpans).toString());
+						writer.newLine();
+					}
+				}else {
+					for (Span span : batch) {
+						if(threads.putIfAbsent(span.threadId, span.threadName)==null) {
+							first=writeChromeEvent(toThreadNameEvent(span.threadId, span.threadName), first);
+						}
+						first=writeChromeEvent(toChromeEvent(span), first);
+					}
+				}
+				batch.clear();
+				if(pending.isEmpty()) {
+					writer.flush();
+				}
+			}
+			if(!otlpFile) {
+				writer.write(']');
+				writer.newLine();
+			}
+			writer.flush();
+		}catch(IOException e) {
+			//spans must not pile up if they cannot be written
+			writing=false;
+			pending.clear();
+			e.printStackTrace();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	private boolean writeChromeEvent(DataObject event,boolean first) throws IOException {
+		if(!first) {
+			writer.write(',');
+		}
+		writer.newLine();
+		writer.write(event.toString());
+		return false;
+	}
+	/**
+	 * writes all spans that are still waiting and closes the <i>trace-file</i><br>
+	 * Spans that are ended afterwards are only kept in memory.
+	 * @throws IOException if the file cannot be closed
+	 */
+	void close() throws IOException {
+		if(writer==null) {
+			return;
+		}
+		writing=false;
+		pending.add(END);
+		try {
+			writerThread.join();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writer.close();
+	}
+
+	/**
+	 * a span that has been started and is recorded when it is ended
+	 */
+	static final class Span{
+		private final InteractionTrace trace;
+		private final String name;
+		private final long channelId;
+		private final String command;
+		private final String test;
+		private final long spanId=randomSpanId();
+		private final long parentId;
+		private final long threadId;
+		private final String threadName;
+		private final long startNanos=System.nanoTime();
+		private volatile long endNanos;
+
+		private Span(InteractionTrace trace,String name,long channelId,String command,String test,long parentId) {
+			this.trace=trace;
+			this.name=name;
+			this.channelId=channelId;
+			this.command=command;
+			this.test=test;
+			this.parentId=parentId;
+			Thread thread=Thread.currentThread();
+			this.threadId=thread.getId();
+			this.threadName=thread.getName();
+		}
+		/**
+		 * ends the span and records it, calling this more than once has no effect
+		 */
+		synchronized void end() {
+			if(trace==null||endNanos!=0) {
+				return;
+			}
+			endNanos=System.nanoTime();
+			trace.add(this);
+		}
+		private static long randomSpanId() {
+			long id;
+			do {
+				id=ThreadLocalRandom.current().nextLong();
+			}while(id==0);//an ID of 0 is invalid in OTLP
+			return id;
+		}
+		private DataObject getAttributes() {
+			DataObject attributes=DataObject.empty();
+			if(channelId!=0) {
+				attributes.put("channel", Long.toUnsignedString(channelId));
+			}
+			if(command!=null) {
+				attributes.put("command", command);
+			}
+			if(test!=null) {
+				attributes.put("test", test);
+			}
+			return attributes;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: JDAFactory.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import net.dv8tion.jda.api.JDA;
+
+/**
+ * creates the {@link JDA} instance of the bot to test<br>
+ * If the <code>jda-tests.properties</code> do not contain a <i>jda-factory-class</i>, the factory is loaded using {@link java.util.ServiceLoader}.
+ * In order to do this, the fully qualified name of the implementation needs to be written to a file named
+ * <code>META-INF/services/io.github.jdiscordbots.jdatesting.JDAFactory</code> in the classpath.
+ * @see TestUtils
+ */
+@FunctionalInterface
+public interface JDAFactory {
+	/**
+	 * creates the {@link JDA} instance<br>
+	 * This is called once in a background thread as soon as {@link TestUtils} is loaded.
+	 * @return the {@link JDA} instance
+	 * @throws Exception if the instance cannot be created
+	 */
+	JDA createJDA() throws Exception;
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: LatencyHistogram.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * histogram of latencies with a fixed memory footprint<br>
+ * Latencies are counted in buckets whose width grows with the value (log-linear like HdrHistogram) so every recorded value is kept with a relative error of less than 1%.
+ * Recording a value does not allocate and is safe to be done concurrently.
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS=7;
+	private static final int SUB_BUCKET_COUNT=1<<SUB_BUCKET_BITS;
+	/**
+	 * the highest latency in nanoseconds that can be recorded, higher latencies are recorded as this value (about 2.4 hours)
+	 */
+	private static final long MAX_VALUE=(1L<<43)-1;
+	private static final int BUCKET_COUNT=64-Long.numberOfLeadingZeros(MAX_VALUE)-SUB_BUCKET_BITS+1;
+
+	private final AtomicLongArray counts=new AtomicLongArray(BUCKET_COUNT*SUB_BUCKET_COUNT);
+	private final AtomicLong count=new AtomicLong();
+	private final AtomicLong sum=new AtomicLong();
+	private final AtomicLong max=new AtomicLong();
+
+	/**
+	 * records a latency
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		long value=Math.min(MAX_VALUE, Math.max(0, nanos));
+		counts.incrementAndGet(indexOf(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+	private static int indexOf(long value) {
+		if(value<SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent=63-Long.numberOfLeadingZeros(value);
+		int shift=exponent-SUB_BUCKET_BITS;
+		return (shift+1)*SUB_BUCKET_COUNT+(int) (value>>>shift)-SUB_BUCKET_COUNT;
+	}
+	/**
+	 * gets the highest value that is counted in the same bucket as a value at a specific index
+	 * @param index the index of the bucket
+	 * @return the highest value of the bucket
+	 */
+	private static long highestValueAt(int index) {
+		if(index<SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift=index/SUB_BUCKET_COUNT-1;
+		long lowest=(long) (SUB_BUCKET_COUNT+index%SUB_BUCKET_COUNT)<<shift;
+		return lowest+(1L<<shift)-1;
+	}
+	/**
+	 * gets the number of recorded latencies
+	 * @return the number of recorded latencies
+	 */
+	public long getCount() {
+		return count.get();
+	}
+	/**
+	 * gets the highest recorded latency
+	 * @return the highest latency or {@link Duration#ZERO} if nothing has been recorded
+	 */
+	public Duration getMax() {
+		return Duration.ofNanos(max.get());
+	}
+	/**
+	 * gets the arithmetic mean of all recorded latencies
+	 * @return the mean latency or {@link Duration#ZERO} if nothing has been recorded
+	 */
+	public Duration getMean() {
+		long num=count.get();
+		return num==0?Duration.ZERO:Duration.ofNanos(sum.get()/num);
+	}
+	/**
+	 * gets the latency that is not exceeded by a certain percentage of all recorded latencies
+	 * @param percentile the percentage, e.g. <code>99</code> for the 99th percentile
+	 * @return the latency or {@link Duration#ZERO} if nothing has been recorded
+	 */
+	public Duration getPercentile(double percentile) {
+		return Duration.ofNanos(getPercentileNanos(percentile));
+	}
+	long getPercentileNanos(double percentile) {
+		if(percentile<0||percentile>100) {
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+		}
+		long total=count.get();
+		if(total==0) {
+			return 0;
+		}
+		long target=Math.max(1, (long) Math.ceil(percentile/100*total));
+		long seen=0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen+=counts.get(i);
+			if(seen>=target) {
+				return Math.min(highestValueAt(i), max.get());
+			}
+		}
+		return max.get();
+	}
+	/**
+	 * gets the median of all recorded latencies
+	 * @return the 50th percentile
+	 */
+	public Duration getP50() {
+		return getPercentile(50);
+	}
+	/**
+	 * gets the 95th percentile of all recorded latencies
+	 * @return the 95th percentile
+	 */
+	public Duration getP95() {
+		return getPercentile(95);
+	}
+	/**
+	 * gets the 99th percentile of all recorded latencies
+	 * @return the 99th percentile
+	 */
+	public Duration getP99() {
+		return getPercentile(99);
+	}
+	long getMaxNanos() {
+		return max.get();
+	}
+	long getMeanNanos() {
+		return getMean().toNanos();
+	}
+	@Override
+	public String toString() {
+		return "LatencyHistogram[count="+getCount()+", p50="+getP50()+", p95="+getP95()+", p99="+getP99()+", max="+getMax()+"]";
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: LatencyReservoir.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * uniform random sample of a bounded number of latencies (reservoir sampling)<br>
+ * Two samples can be compared using the Mann-Whitney U test, which does not assume a distribution of the latencies.
+ */
+final class LatencyReservoir {
+
+	private final long[] samples;
+	private long count=0;
+
+	LatencyReservoir(int size) {
+		if(size<1) {
+			throw new IllegalArgumentException("the reservoir needs to hold at least one sample");
+		}
+		samples=new long[size];
+	}
+	/**
+	 * adds a latency to the sample, replacing a random latency if the reservoir is full
+	 * @param nanos the latency in nanoseconds
+	 */
+	void record(long nanos) {
+		count++;
+		if(count<=samples.length) {
+			samples[(int) (count-1)]=nanos;
+		}else {
+			long index=ThreadLocalRandom.current().nextLong(count);
+			if(index<samples.length) {
+				samples[(int) index]=nanos;
+			}
+		}
+	}
+	/**
+	 * gets the number of latencies in the sample
+	 * @return the sample size
+	 */
+	int size() {
+		return (int) Math.min(count, samples.length);
+	}
+	/**
+	 * gets the median of the sample
+	 * @return the median latency in nanoseconds or <code>0</code> if the sample is empty
+	 */
+	long getMedian() {
+		int size=size();
+		if(size==0) {
+			return 0;
+		}
+		long[] sorted=Arrays.copyOf(samples, size);
+		Arrays.sort(sorted);
+		return sorted[size/2];
+	}
+	/**
+	 * calculates the Mann-Whitney U statistic of this sample compared with another sample
+	 * @param other the other sample
+	 * @return the number of pairs where the latency of this sample is greater than the latency of the other sample, ties count as half
+	 */
+	double getU(LatencyReservoir other) {
+		return rank(other)[0];
+	}
+	/**
+	 * tests if the latencies of another sample are distributed differently using a two-sided Mann-Whitney U test<br>
+	 * The normal approximation with tie correction is used, so both samples should contain at least 20 latencies.
+	 * @param other the other sample
+	 * @return the p-value, a small value means that the samples are unlikely to come from the same distribution
+	 */
+	double compare(LatencyReservoir other) {
+		int n1=size();
+		int n2=other.size();
+		if(n1==0||n2==0) {
+			return 1;
+		}
+		int n=n1+n2;
+		double[] ranked=rank(other);
+		double u=ranked[0];
+		double tieCorrection=ranked[1];
+		double mean=n1*(double)n2/2;
+		double variance=n1*(double)n2/12*((n+1)-tieCorrection/(n*(double)(n-1)));
+		if(variance<=0) {
+			return 1;
+		}
+		double z=Math.max(0, Math.abs(u-mean)-0.5)/Math.sqrt(variance);
+		return Math.min(1, 2*(1-normalCdf(z)));
+	}
+	/**
+	 * ranks the latencies of both samples together
+	 * @param other the other sample
+	 * @return the U statistic of this sample and the sum of <code>t^3-t</code> over all groups of <code>t</code> tied latencies
+	 */
+	private double[] rank(LatencyReservoir other) {
+		int n1=size();
+		int n2=other.size();
+		int n=n1+n2;
+		long[] values=new long[n];
+		boolean[] first=new boolean[n];
+		Integer[] order=new Integer[n];
+		for (int i = 0; i < n; i++) {
+			values[i]=i<n1?samples[i]:other.samples[i-n1];
+			first[i]=i<n1;
+			order[i]=i;
+		}
+		Arrays.sort(order, (a,b)->Long.compare(values[a], values[b]));
+		double rankSum=0;
+		double tieCorrection=0;
+		for (int i = 0; i < n;) {
+			int j=i;
+			while(j+1<n&&values[order[j+1]]==values[order[i]]) {
+				j++;
+			}
+			double rank=(i+j)/2.0+1;
+			for (int k = i; k <= j; k++) {
+				if(first[order[k]]) {
+					rankSum+=rank;
+				}
+			}
+			double ties=j-i+1;
+			tieCorrection+=ties*ties*ties-ties;
+			i=j+1;
+		}
+		return new double[] {rankSum-n1*(n1+1)/2.0, tieCorrection};
+	}
+	/**
+	 * approximates the cumulative distribution function of the standard normal distribution
+	 * @param z a non-negative value
+	 * @return the probability of a value less than or equal to <code>z</code>
+	 */
+	private static double normalCdf(double z) {
+		//Abramowitz and Stegun 7.1.26
+		double x=z/Math.sqrt(2);
+		double t=1/(1+0.3275911*x);
+		double erf=1-(((((1.061405429*t-1.453152027)*t)+1.421413741)*t-0.284496736)*t+0.254829592)*t*Math.exp(-x*x);
+		return (1+erf)/2;
+	}
+}
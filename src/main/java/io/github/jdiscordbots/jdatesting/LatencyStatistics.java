@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: LatencyStatistics.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ObjLongConsumer;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+/**
+ * response latencies of the bot, recorded per command<br>
+ * A latency is the time between sending a command and receiving the first message that matches an await for a response.
+ * The command is identified by the first word after the prefix.
+ * @see TestUtils#getLatencyStatistics()
+ */
+public final class LatencyStatistics {
+
+	private static final double NANOS_PER_MILLI=1_000_000.0;
+
+	private final Map<String, LatencyHistogram> histograms=new ConcurrentHashMap<>();
+	private final List<ObjLongConsumer<String>> listeners=new CopyOnWriteArrayList<>();
+
+	LatencyStatistics() {
+		//only created by TestUtils
+	}
+	/**
+	 * gets the name of a command
+	 * @param content the content of the command without prefix
+	 * @return the first word of the command
+	 */
+	static String getCommandName(String content) {
+		String trimmed=content.trim();
+		for (int i = 0; i < trimmed.length(); i++) {
+			if(Character.isWhitespace(trimmed.charAt(i))) {
+				return trimmed.substring(0, i);
+			}
+		}
+		return trimmed;
+	}
+	void record(String command,long nanos) {
+		histograms.computeIfAbsent(command, name->new LatencyHistogram()).record(nanos);
+		for (ObjLongConsumer<String> listener : listeners) {
+			listener.accept(command, nanos);
+		}
+	}
+	/**
+	 * adds a listener that is called with the command name and the latency in nanoseconds whenever a latency is recorded<br>
+	 * The listener is called in the thread that received the response, so it should not block.
+	 * @param listener the listener
+	 */
+	void addListener(ObjLongConsumer<String> listener) {
+		listeners.add(listener);
+	}
+	/**
+	 * removes a listener added using {@link LatencyStatistics#addListener(ObjLongConsumer)}
+	 * @param listener the listener
+	 */
+	void removeListener(ObjLongConsumer<String> listener) {
+		listeners.remove(listener);
+	}
+	/**
+	 * gets the names of all commands a latency has been recorded for
+	 * @return an unmodifiable, sorted {@link Set} of the command names
+	 */
+	public Set<String> getCommands() {
+		return Collections.unmodifiableSet(new TreeSet<>(histograms.keySet()));
+	}
+	/**
+	 * gets the latencies of a command
+	 * @param command the name of the command (the first word after the prefix)
+	 * @return the {@link LatencyHistogram} of the command or <code>null</code> if no latency has been recorded for the command
+	 */
+	public LatencyHistogram getHistogram(String command) {
+		return histograms.get(command);
+	}
+	/**
+	 * removes all recorded latencies
+	 */
+	public void clear() {
+		histograms.clear();
+	}
+	/**
+	 * creates a JSON representation of the latencies of all commands<br>
+	 * All durations are specified in milliseconds.
+	 * @return the latencies as JSON
+	 */
+	public String toJson() {
+		DataArray commands=DataArray.empty();
+		for (String command : getCommands()) {
+			LatencyHistogram histogram=histograms.get(command);
+			commands.add(DataObject.empty()
+					.put("command", command)
+					.put("count", histogram.getCount())
+					.put("mean", toMillis(histogram.getMeanNanos()))
+					.put("p50", toMillis(histogram.getPercentileNanos(50)))
+					.put("p95", toMillis(histogram.getPercentileNanos(95)))
+					.put("p99", toMillis(histogram.getPercentileNanos(99)))
+					.put("max", toMillis(histogram.getMaxNanos())));
+		}
+		return DataObject.empty().put("unit", "ms").put("commands", commands).toString();
+	}
+	/**
+	 * creates a CSV representation of the latencies of all commands<br>
+	 * All durations are specified in milliseconds.
+	 * @return the latencies as CSV including a header line
+	 */
+	public String toCsv() {
+		StringBuilder sb=new StringBuilder("command,count,mean_ms,p50_ms,p95_ms,p99_ms,max_ms\n");
+		for (String command : getCommands()) {
+			LatencyHistogram histogram=histograms.get(command);
+			sb.append('"').append(command.replace("\"", "\"\"")).append('"')
+				.append(',').append(histogram.getCount())
+				.append(',').append(toMillis(histogram.getMeanNanos()))
+				.append(',').append(toMillis(histogram.getPercentileNanos(50)))
+				.append(',').append(toMillis(histogram.getPercentileNanos(95)))
+				.append(',').append(toMillis(histogram.getPercentileNanos(99)))
+				.append(',').append(toMillis(histogram.getMaxNanos()))
+				.append('\n');
+		}
+		return sb.toString();
+	}
+	/**
+	 * writes the latencies of all commands to a file<br>
+	 * If the name of the file ends with <code>.csv</code>, CSV is used, else JSON.
+	 * @param file the file
+	 * @throws IOException if the file cannot be written
+	 * @see LatencyStatistics#toJson()
+	 * @see LatencyStatistics#toCsv()
+	 */
+	public void export(Path file) throws IOException {
+		String content=file.getFileName().toString().endsWith(".csv")?toCsv():toJson();
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+	private static double toMillis(long nanos) {
+		return nanos/NANOS_PER_MILLI;
+	}
+}
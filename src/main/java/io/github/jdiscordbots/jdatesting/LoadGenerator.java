@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: LoadGenerator.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import net.dv8tion.jda.api.entities.Message;
+
+/**
+ * generates load on the bot by sending a mix of commands and awaiting their responses<br>
+ * Commands are sent using {@link TestContext#expectReply(String, Predicate)} in the channel of a {@link TestContext}.
+ * If a rate is set, commands are sent open-loop: they are scheduled independently of the responses of the bot
+ * and latencies are measured from the time a command should have been sent, so a slow bot or rate limits cannot hide backpressure.
+ * If a concurrency is set instead, a fixed number of commands is outstanding at any time.<br>
+ * Rate limits of Discord are respected by JDA and the number of concurrent requests is limited by the {@link RestScheduler}.
+ * When running against {@link OfflineDiscord}, there are no rate limits and requests are not limited unless <i>rest-concurrency</i> is set.
+ */
+public final class LoadGenerator {
+
+	private final TestContext context;
+	private final List<LoadCommand> commands=new ArrayList<>();
+	private int totalWeight=0;
+	private double rate=1;
+	private int concurrency=0;
+	private Duration duration=Duration.ofMinutes(1);
+	private boolean useTesterAccounts=false;
+
+	/**
+	 * creates a load generator that uses the default {@link TestContext}
+	 * @see TestUtils#getDefaultContext()
+	 */
+	public LoadGenerator() {
+		this(TestUtils.getDefaultContext());
+	}
+	/**
+	 * creates a load generator that uses a specific {@link TestContext}<br>
+	 * The timeout of the context is used as maximum time to wait for a response.
+	 * @param context the {@link TestContext}
+	 */
+	public LoadGenerator(TestContext context) {
+		this.context=context;
+	}
+	/**
+	 * adds a command to the command mix
+	 * @param content the content of the command after the prefix
+	 * @param response a function that returns <code>true</code> if a message is the expected response to the command
+	 * @param weight the relative frequency of the command compared to the other commands
+	 */
+	public void addCommand(String content,Predicate<Message> response,int weight) {
+		if(weight<=0) {
+			throw new IllegalArgumentException("weight must be positive");
+		}
+		commands.add(new LoadCommand(content, response, weight));
+		totalWeight+=weight;
+	}
+	/**
+	 * sets the number of commands that should be sent per second<br>
+	 * This disables a fixed concurrency.
+	 * @param rate the number of commands per second
+	 */
+	public void setRate(double rate) {
+		if(rate<=0) {
+			throw new IllegalArgumentException("rate must be positive");
+		}
+		this.rate=rate;
+		this.concurrency=0;
+	}
+	/**
+	 * sets the number of commands that should be awaiting a response at any time<br>
+	 * This disables a fixed rate.
+	 * @param concurrency the number of concurrently outstanding commands
+	 */
+	public void setConcurrency(int concurrency) {
+		if(concurrency<=0) {
+			throw new IllegalArgumentException("concurrency must be positive");
+		}
+		this.concurrency=concurrency;
+	}
+	/**
+	 * sets the time during which commands are sent
+	 * @param duration the duration of the load test
+	 */
+	public void setDuration(Duration duration) {
+		this.duration=duration;
+	}
+	/**
+	 * sets whether commands should be distributed over all tester accounts in round-robin order instead of being sent by the bot itself<br>
+	 * This simulates many users sending commands at the same time.
+	 * @param useTesterAccounts <code>true</code> if the tester accounts should send the commands
+	 * @see TestUtils#nextTesterAccount()
+	 */
+	public void setUseTesterAccounts(boolean useTesterAccounts) {
+		this.useTesterAccounts=useTesterAccounts;
+	}
+	private LoadCommand nextCommand() {
+		int selected=ThreadLocalRandom.current().nextInt(totalWeight);
+		for (LoadCommand command : commands) {
+			selected-=command.weight;
+			if(selected<0) {
+				return command;
+			}
+		}
+		return commands.get(commands.size()-1);
+	}
+	/**
+	 * runs the load test and waits until all responses have been received or timed out
+	 * @return the {@link LoadReport} of the load test
+	 */
+	public LoadReport run() {
+		if(commands.isEmpty()) {
+			throw new IllegalStateException("no commands have been added");
+		}
+		Run run=new Run();
+		ScheduledExecutorService scheduler=Executors.newSingleThreadScheduledExecutor(r->{
+			Thread t=new Thread(r, "LoadGenerator");
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			if(concurrency>0) {
+				for (int i = 0; i < concurrency; i++) {
+					scheduler.execute(()->run.sendClosedLoop(scheduler));
+				}
+			}else {
+				long intervalNanos=Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1)/rate));
+				AtomicLong index=new AtomicLong();
+				scheduler.scheduleAtFixedRate(()->run.send(run.startNanos+index.getAndIncrement()*intervalNanos), 0, intervalNanos, TimeUnit.NANOSECONDS);
+			}
+			TimeUnit.NANOSECONDS.sleep(run.endNanos-System.nanoTime());
+			scheduler.shutdown();
+			scheduler.awaitTermination(context.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+			CompletableFuture.allOf(run.outstanding.toArray(new CompletableFuture[0])).join();
+		}catch(CompletionException e) {
+			//failed commands are counted as errors
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}finally {
+			scheduler.shutdownNow();
+		}
+		return run.createReport();
+	}
+
+	private static final class LoadCommand{
+		private final String content;
+		private final Predicate<Message> response;
+		private final int weight;
+
+		private LoadCommand(String content,Predicate<Message> response,int weight) {
+			this.content=content;
+			this.response=response;
+			this.weight=weight;
+		}
+	}
+
+	/**
+	 * state of one execution of the load test
+	 */
+	private final class Run{
+		private final long startNanos=System.nanoTime();
+		private final long endNanos=startNanos+duration.toNanos();
+		private final Set<CompletableFuture<Message>> outstanding=ConcurrentHashMap.newKeySet();
+		private final LatencyHistogram latencies=new LatencyHistogram();
+		private final AtomicLong sent=new AtomicLong();
+		private final AtomicLong responses=new AtomicLong();
+		private final AtomicLong errors=new AtomicLong();
+		private final AtomicLong timeouts=new AtomicLong();
+		private final AtomicLong lastResponseNanos=new AtomicLong(startNanos);
+
+		/**
+		 * sends a command and records the response
+		 * @param intendedNanos the time when the command should have been sent, used as start of the latency
+		 * @return a future that is completed when the response has been received or the await failed
+		 */
+		private CompletableFuture<Message> send(long intendedNanos) {
+			LoadCommand command=nextCommand();
+			CompletableFuture<Message> future;
+			try {
+				if(useTesterAccounts) {
+					future=context.expectReply(TestUtils.nextTesterAccount(), command.content, command.response);
+				}else {
+					future=context.expectReply(command.content, command.response);
+				}
+			}catch(RuntimeException e) {
+				errors.incrementAndGet();
+				return CompletableFuture.completedFuture(null);
+			}
+			sent.incrementAndGet();
+			outstanding.add(future);
+			future.whenComplete((msg,e)->{
+				long now=System.nanoTime();
+				if(e!=null) {
+					errors.incrementAndGet();
+				}else if(msg==null) {
+					timeouts.incrementAndGet();
+				}else {
+					responses.incrementAndGet();
+					latencies.record(now-intendedNanos);
+				}
+				lastResponseNanos.accumulateAndGet(now, Math::max);
+				outstanding.remove(future);
+			});
+			return future;
+		}
+		private void sendClosedLoop(ScheduledExecutorService scheduler) {
+			if(System.nanoTime()-endNanos>=0||scheduler.isShutdown()) {
+				return;
+			}
+			send(System.nanoTime()).whenComplete((msg,e)->{
+				try {
+					scheduler.execute(()->sendClosedLoop(scheduler));
+				}catch(RejectedExecutionException ex) {
+					//the load test is done
+				}
+			});
+		}
+		private LoadReport createReport() {
+			long end=Math.max(lastResponseNanos.get(), Math.min(System.nanoTime(), endNanos));
+			return new LoadReport(Duration.ofNanos(end-startNanos), sent.get(), responses.get(), errors.get(), timeouts.get(), latencies);
+		}
+	}
+}
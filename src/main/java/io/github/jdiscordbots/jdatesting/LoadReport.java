@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: LoadReport.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.time.Duration;
+
+/**
+ * results of a load test executed by a {@link LoadGenerator}
+ */
+public final class LoadReport {
+
+	private final Duration duration;
+	private final long sent;
+	private final long responses;
+	private final long errors;
+	private final long timeouts;
+	private final LatencyHistogram latencies;
+
+	LoadReport(Duration duration,long sent,long responses,long errors,long timeouts,LatencyHistogram latencies) {
+		this.duration=duration;
+		this.sent=sent;
+		this.responses=responses;
+		this.errors=errors;
+		this.timeouts=timeouts;
+		this.latencies=latencies;
+	}
+	/**
+	 * gets the time from sending the first command until the last response has been received or timed out
+	 * @return the duration of the load test
+	 */
+	public Duration getDuration() {
+		return duration;
+	}
+	/**
+	 * gets the number of commands that have been sent
+	 * @return the number of sent commands
+	 */
+	public long getSent() {
+		return sent;
+	}
+	/**
+	 * gets the number of commands that have been answered with a matching response
+	 * @return the number of responses
+	 */
+	public long getResponses() {
+		return responses;
+	}
+	/**
+	 * gets the number of commands that could not be sent or whose response predicate threw an exception
+	 * @return the number of errors
+	 */
+	public long getErrors() {
+		return errors;
+	}
+	/**
+	 * gets the number of commands that have not been answered with a matching response until the timeout expired
+	 * @return the number of timeouts
+	 * @see TestContext#getTimeout()
+	 */
+	public long getTimeouts() {
+		return timeouts;
+	}
+	/**
+	 * gets the achieved throughput
+	 * @return the number of responses per second
+	 */
+	public double getThroughput() {
+		long nanos=duration.toNanos();
+		return nanos==0?0:responses*1_000_000_000.0/nanos;
+	}
+	/**
+	 * gets the latencies of all responses<br>
+	 * When a fixed rate is used, the latency is measured from the time the command should have been sent,
+	 * so delays caused by rate limits or a slow bot are included.
+	 * @return the {@link LatencyHistogram} of the responses
+	 */
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+	@Override
+	public String toString() {
+		return "LoadReport[duration="+duration+", sent="+sent+", responses="+responses+", errors="+errors+", timeouts="+timeouts
+				+", throughput="+String.format("%.2f/s", getThroughput())+", latencies="+latencies+"]";
+	}
+}
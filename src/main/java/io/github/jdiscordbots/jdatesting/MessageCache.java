@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageCache.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.events.message.MessageBulkDeleteEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageDeleteEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageUpdateEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+
+/**
+ * per-channel cache of the messages that have been retrieved while awaiting messages<br>
+ * Every channel has a cursor pointing to the newest retrieved message that is shared by all awaits, so every message is only retrieved once.
+ * Only messages sent during the tests are cached. If a channel contains more messages than the capacity, the oldest cached messages are removed.
+ * Cached messages are updated and removed when they are edited or deleted.
+ */
+final class MessageCache extends ListenerAdapter {
+
+	private final Map<Long, ChannelCache> channels=new ConcurrentHashMap<>();
+	private volatile int capacity;
+
+	MessageCache(int capacity) {
+		setCapacity(capacity);
+	}
+	/**
+	 * gets the Snowflake ID of the newest message that has been retrieved from a {@link TextChannel}
+	 * @param tc the {@link TextChannel}
+	 * @return the ID or <code>null</code> if no messages have been retrieved from the channel yet
+	 */
+	Long getCursor(TextChannel tc) {
+		ChannelCache cache=channels.get(tc.getIdLong());
+		return cache==null?null:cache.getCursor();
+	}
+	/**
+	 * adds retrieved messages to the cache of a {@link TextChannel} and moves the cursor to the newest of them<br>
+	 * Messages that have not been sent during the tests are not cached.
+	 * @param tc the {@link TextChannel} the messages have been retrieved from
+	 * @param retrieved the retrieved messages in any order
+	 */
+	void add(TextChannel tc,List<Message> retrieved) {
+		channels.computeIfAbsent(tc.getIdLong(), id->new ChannelCache()).add(retrieved, capacity);
+	}
+	/**
+	 * gets cached messages of a {@link TextChannel} that have been sent after a message
+	 * @param tc the {@link TextChannel}
+	 * @param afterId the Snowflake ID of the message
+	 * @param limit the maximum number of messages
+	 * @return the newest cached messages after the message, newest first
+	 */
+	List<Message> getMessages(TextChannel tc,long afterId,int limit) {
+		ChannelCache cache=channels.get(tc.getIdLong());
+		return cache==null?new ArrayList<>():cache.getMessages(afterId, limit);
+	}
+	int getCapacity() {
+		return capacity;
+	}
+	void setCapacity(int capacity) {
+		if(capacity<1) {
+			throw new IllegalArgumentException("the cache needs to hold at least one message per channel");
+		}
+		this.capacity=capacity;
+	}
+	@Override
+	public void onGuildMessageUpdate(GuildMessageUpdateEvent event) {
+		ChannelCache cache=channels.get(event.getChannel().getIdLong());
+		if(cache!=null) {
+			cache.update(event.getMessage());
+		}
+	}
+	@Override
+	public void onGuildMessageDelete(GuildMessageDeleteEvent event) {
+		ChannelCache cache=channels.get(event.getChannel().getIdLong());
+		if(cache!=null) {
+			cache.remove(event.getMessageIdLong());
+		}
+	}
+	@Override
+	public void onMessageBulkDelete(MessageBulkDeleteEvent event) {
+		ChannelCache cache=channels.get(event.getChannel().getIdLong());
+		if(cache!=null) {
+			for (String id : event.getMessageIds()) {
+				cache.remove(Long.parseUnsignedLong(id));
+			}
+		}
+	}
+
+	private static final class ChannelCache{
+		private final NavigableMap<Long, Message> messages=new TreeMap<>();
+		private Long cursor;
+
+		private synchronized Long getCursor() {
+			return cursor;
+		}
+		private synchronized void add(List<Message> retrieved,int capacity) {
+			long newest=cursor==null?TestUtils.getStartId():cursor;
+			for (Message msg : retrieved) {
+				long id=msg.getIdLong();
+				newest=Math.max(newest, id);
+				if(TestUtils.isMessageSentDuringTest(msg)) {
+					messages.put(id, msg);
+				}
+			}
+			cursor=newest;
+			while(messages.size()>capacity) {
+				messages.pollFirstEntry();
+			}
+		}
+		private synchronized List<Message> getMessages(long afterId,int limit) {
+			NavigableMap<Long, Message> newer=messages.tailMap(afterId, false).descendingMap();
+			List<Message> ret=new ArrayList<>(Math.min(limit, newer.size()));
+			for (Message msg : newer.values()) {
+				if(ret.size()>=limit) {
+					break;
+				}
+				ret.add(msg);
+			}
+			return ret;
+		}
+		private synchronized void update(Message msg) {
+			messages.replace(msg.getIdLong(), msg);
+		}
+		private synchronized void remove(long id) {
+			messages.remove(id);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageLogEvent.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.List;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.MessageEmbed.Field;
+
+/**
+ * a {@link Message} that has been tested when awaiting a message<br>
+ * The String representations of the message are only created when they are requested for the first time.
+ * @see MessageLogger
+ */
+public final class MessageLogEvent {
+
+	private final Message message;
+	private String summary;
+	private String rendered;
+
+	MessageLogEvent(Message message) {
+		this.message=message;
+	}
+	/**
+	 * gets the tested {@link Message}
+	 * @return the {@link Message}
+	 */
+	public Message getMessage() {
+		return message;
+	}
+	/**
+	 * gets the Snowflake ID of the tested message
+	 * @return the ID of the message
+	 */
+	public long getMessageId() {
+		return message.getIdLong();
+	}
+	/**
+	 * gets the Snowflake ID of the channel where the tested message was sent
+	 * @return the ID of the channel
+	 */
+	public long getChannelId() {
+		return message.getChannel().getIdLong();
+	}
+	/**
+	 * gets the Snowflake ID of the author of the tested message
+	 * @return the ID of the author
+	 */
+	public long getAuthorId() {
+		return message.getAuthor().getIdLong();
+	}
+	/**
+	 * gets the number of embeds of the tested message
+	 * @return the number of embeds
+	 */
+	public int getEmbedCount() {
+		return message.getEmbeds().size();
+	}
+	/**
+	 * gets a short description of the embeds of the tested message containing their titles and the number of fields
+	 * @return the summary of the embeds or an empty String if the message does not contain embeds
+	 */
+	public synchronized String getEmbedSummary() {
+		if(summary==null) {
+			StringBuilder sb=new StringBuilder();
+			for (MessageEmbed embed : message.getEmbeds()) {
+				if(sb.length()>0) {
+					sb.append(", ");
+				}
+				sb.append("embed{title=\"").append(embed.getTitle()).append("\", fields=").append(embed.getFields().size()).append('}');
+			}
+			summary=sb.toString();
+		}
+		return summary;
+	}
+	/**
+	 * gets a String representation of the tested message containing its content and its embeds including all fields
+	 * @return the String representation
+	 */
+	public synchronized String render() {
+		if(rendered==null) {
+			rendered=render(message);
+		}
+		return rendered;
+	}
+	private static String render(Message msg) {
+		List<MessageEmbed> embeds=msg.getEmbeds();
+		StringBuilder sb=new StringBuilder("Testing message: ");
+		if(!"".equals(msg.getContentRaw())) {
+			if(!embeds.isEmpty()) {
+				sb.append('\"');
+			}
+			sb.append(msg.getContentRaw());
+			if(!embeds.isEmpty()) {
+				sb.append('\"');
+			}
+		}
+		for (MessageEmbed embed : embeds) {
+			if(embed.getTitle()!=null) {
+				sb.append("title=\"");
+				sb.append(embed.getTitle());
+				sb.append('\"');
+			}
+			if(embed.getDescription()!=null) {
+				sb.append("desc=\"");
+				sb.append(embed.getDescription());
+				sb.append('\"');
+			}
+			for (Field field : embed.getFields()) {
+				sb.append("field{\"");
+				sb.append(field.getName());
+				sb.append("\"/\"");
+				sb.append(field.getValue());
+				sb.append("\"}");
+			}
+		}
+		return sb.toString();
+	}
+	@Override
+	public String toString() {
+		return "MessageLogEvent[id="+getMessageId()+", author="+getAuthorId()+", embeds="+getEmbedCount()+"]";
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageLogger.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.function.Consumer;
+
+/**
+ * receives the messages that are tested when awaiting a message<br>
+ * Every message is logged at most once per await.
+ * @see TestContext#setMessageLogger(MessageLogger)
+ */
+public interface MessageLogger {
+	/**
+	 * checks if messages should be logged<br>
+	 * If this returns <code>false</code>, no {@link MessageLogEvent} is created.
+	 * @return <code>true</code> if messages should be logged, else <code>false</code>
+	 */
+	default boolean isEnabled() {
+		return true;
+	}
+	/**
+	 * logs a tested message
+	 * @param event the {@link MessageLogEvent} describing the message
+	 */
+	void log(MessageLogEvent event);
+	/**
+	 * creates a {@link MessageLogger} that passes the rendered messages to a {@link Consumer}
+	 * @param logger a logger that accepts the logged String
+	 * @return the {@link MessageLogger}
+	 * @see MessageLogEvent#render()
+	 */
+	static MessageLogger of(Consumer<String> logger) {
+		return event->logger.accept(event.render());
+	}
+	/**
+	 * creates a {@link MessageLogger} that passes the events to another {@link MessageLogger} in a background thread<br>
+	 * Logging using this logger never blocks awaiting messages.
+	 * All asynchronous loggers share one background thread that logs the remaining events and stops when the tests are done.
+	 * @param logger the {@link MessageLogger} that should receive the events
+	 * @return the asynchronous {@link MessageLogger}
+	 */
+	static MessageLogger async(MessageLogger logger) {
+		return new AsyncMessageLogger(logger);
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageMatcher.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.MessageEmbed.Field;
+
+/**
+ * criteria for messages that can be used for awaiting messages<br>
+ * Cheap criteria like the author, the length of the content and the number of embeds are checked first.
+ * If a message does not match, {@link MessageMatcher#describeMismatch(Message)} explains why.<br>
+ * A matcher does not keep any state and can be shared between awaits.
+ * In order to explain a failed await, the await can use an {@link Evaluation} created by {@link MessageMatcher#newEvaluation()} that remembers the last mismatch.
+ * @see MessageMatcherBuilder
+ */
+public final class MessageMatcher implements Predicate<Message> {
+
+	private final long authorId;
+	private final String content;
+	private final Pattern contentPattern;
+	private final String embedTitle;
+	private final String embedDescription;
+	private final String[] fieldNames;
+	private final String[] fieldValues;
+	private final boolean hasEmbedCriteria;
+
+	MessageMatcher(long authorId,String content,Pattern contentPattern,String embedTitle,String embedDescription,String[] fieldNames,String[] fieldValues) {
+		this.authorId=authorId;
+		this.content=content;
+		this.contentPattern=contentPattern;
+		this.embedTitle=embedTitle;
+		this.embedDescription=embedDescription;
+		this.fieldNames=fieldNames;
+		this.fieldValues=fieldValues;
+		this.hasEmbedCriteria=embedTitle!=null||embedDescription!=null||fieldNames.length>0;
+	}
+
+	@Override
+	public boolean test(Message msg) {
+		if(authorId!=0&&msg.getAuthor().getIdLong()!=authorId) {
+			return false;
+		}
+		String msgContent=msg.getContentRaw();
+		if(content!=null&&(msgContent.length()!=content.length()||!msgContent.equals(content))) {
+			return false;
+		}
+		if(hasEmbedCriteria&&msg.getEmbeds().isEmpty()) {
+			return false;
+		}
+		if(contentPattern!=null&&!contentPattern.matcher(msgContent).matches()) {
+			return false;
+		}
+		return !hasEmbedCriteria||findMatchingEmbed(msg.getEmbeds())!=null;
+	}
+	private MessageEmbed findMatchingEmbed(List<MessageEmbed> embeds) {
+		for (MessageEmbed embed : embeds) {
+			if(embed.getFields().size()>=fieldNames.length
+					&&(embedTitle==null||embedTitle.equals(embed.getTitle()))
+					&&(embedDescription==null||embedDescription.equals(embed.getDescription()))
+					&&hasFields(embed)) {
+				return embed;
+			}
+		}
+		return null;
+	}
+	private boolean hasFields(MessageEmbed embed) {
+		List<Field> fields=embed.getFields();
+		for (int i = 0; i < fieldNames.length; i++) {
+			if(!hasField(fields, fieldNames[i], fieldValues[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+	private static boolean hasField(List<Field> fields,String name,String value) {
+		for (Field field : fields) {
+			if(Objects.equals(field.getName(), name)&&Objects.equals(field.getValue(), value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	/**
+	 * creates an evaluation of this matcher for a single await
+	 * @return the {@link Evaluation}
+	 */
+	public Evaluation newEvaluation() {
+		return new Evaluation();
+	}
+	/**
+	 * explains why a message does not match
+	 * @param msg the {@link Message}
+	 * @return the criteria that are not fulfilled, one per line, or an empty String if the message matches
+	 */
+	public String describeMismatch(Message msg) {
+		StringBuilder sb=new StringBuilder();
+		if(authorId!=0&&msg.getAuthor().getIdLong()!=authorId) {
+			sb.append("author: expected ").append(Long.toUnsignedString(authorId)).append(" but was ").append(msg.getAuthor().getId()).append('\n');
+		}
+		String msgContent=msg.getContentRaw();
+		if(content!=null&&!content.equals(msgContent)) {
+			sb.append("content: expected \"").append(content).append("\" but was \"").append(msgContent).append("\"\n");
+		}
+		if(contentPattern!=null&&!contentPattern.matcher(msgContent).matches()) {
+			sb.append("content: expected to match ").append(contentPattern.pattern()).append(" but was \"").append(msgContent).append("\"\n");
+		}
+		if(hasEmbedCriteria&&findMatchingEmbed(msg.getEmbeds())==null) {
+			if(msg.getEmbeds().isEmpty()) {
+				sb.append("embeds: expected an embed but there were none\n");
+			}
+			for (int i = 0; i < msg.getEmbeds().size(); i++) {
+				describeEmbedMismatch(sb, i, msg.getEmbeds().get(i));
+			}
+		}
+		return sb.toString();
+	}
+	private void describeEmbedMismatch(StringBuilder sb,int index,MessageEmbed embed) {
+		String prefix="embed "+index+" ";
+		if(embedTitle!=null&&!embedTitle.equals(embed.getTitle())) {
+			sb.append(prefix).append("title: expected \"").append(embedTitle).append("\" but was \"").append(embed.getTitle()).append("\"\n");
+		}
+		if(embedDescription!=null&&!embedDescription.equals(embed.getDescription())) {
+			sb.append(prefix).append("description: expected \"").append(embedDescription).append("\" but was \"").append(embed.getDescription()).append("\"\n");
+		}
+		for (int i = 0; i < fieldNames.length; i++) {
+			if(!hasField(embed.getFields(), fieldNames[i], fieldValues[i])) {
+				sb.append(prefix).append("field: expected \"").append(fieldNames[i]).append("\"/\"").append(fieldValues[i]).append("\" but was ");
+				appendFieldValue(sb, embed.getFields(), fieldNames[i]);
+				sb.append('\n');
+			}
+		}
+	}
+	private static void appendFieldValue(StringBuilder sb,List<Field> fields,String name) {
+		for (Field field : fields) {
+			if(Objects.equals(field.getName(), name)) {
+				sb.append('\"').append(field.getName()).append("\"/\"").append(field.getValue()).append('\"');
+				return;
+			}
+		}
+		sb.append("missing");
+	}
+	@Override
+	public String toString() {
+		StringBuilder sb=new StringBuilder("MessageMatcher[");
+		if(authorId!=0) {
+			sb.append("author=").append(Long.toUnsignedString(authorId)).append(", ");
+		}
+		if(content!=null) {
+			sb.append("content=\"").append(content).append("\", ");
+		}
+		if(contentPattern!=null) {
+			sb.append("contentPattern=").append(contentPattern.pattern()).append(", ");
+		}
+		if(embedTitle!=null) {
+			sb.append("embedTitle=\"").append(embedTitle).append("\", ");
+		}
+		if(embedDescription!=null) {
+			sb.append("embedDescription=\"").append(embedDescription).append("\", ");
+		}
+		for (int i = 0; i < fieldNames.length; i++) {
+			sb.append("field{\"").append(fieldNames[i]).append("\"/\"").append(fieldValues[i]).append("\"}, ");
+		}
+		if(sb.charAt(sb.length()-1)==' ') {
+			sb.setLength(sb.length()-2);
+		}
+		return sb.append(']').toString();
+	}
+	/**
+	 * evaluation of a {@link MessageMatcher} in a single await that remembers the newest message that did not match<br>
+	 * This can be used for describing a failure after no matching message has been found until the time expired:
+	 * <pre>
+	 * MessageMatcher.Evaluation evaluation=matcher.newEvaluation();
+	 * Message msg=TestUtils.getMessage(evaluation);
+	 * assertNotNull(evaluation.describeLastMismatch(), msg);
+	 * </pre>
+	 * An evaluation should not be shared between awaits, every await should use its own one.
+	 */
+	public final class Evaluation implements Predicate<Message>{
+		//the await may test messages in multiple threads
+		private volatile Message lastMismatch;
+
+		private Evaluation() {
+			//created by the matcher
+		}
+		@Override
+		public synchronized boolean test(Message msg) {
+			if(MessageMatcher.this.test(msg)) {
+				return true;
+			}
+			if(lastMismatch==null||lastMismatch.getIdLong()<msg.getIdLong()) {
+				lastMismatch=msg;
+			}
+			return false;
+		}
+		/**
+		 * gets the newest message that has been tested in this evaluation and did not match
+		 * @return the {@link Message} or <code>null</code> if every tested message matched
+		 * @see Evaluation#describeLastMismatch()
+		 */
+		public Message getLastMismatch() {
+			return lastMismatch;
+		}
+		/**
+		 * explains why the newest message that has been tested in this evaluation did not match
+		 * @return the explanation or <code>"no messages have been tested"</code> if no mismatching message has been tested
+		 * @see MessageMatcher#describeMismatch(Message)
+		 */
+		public String describeLastMismatch() {
+			Message last=lastMismatch;
+			return last==null?"no messages have been tested":describeMismatch(last);
+		}
+	}
+}
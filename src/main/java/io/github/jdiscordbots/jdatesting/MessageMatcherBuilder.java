@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageMatcherBuilder.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+
+/**
+ * builder for {@link MessageMatcher}s<br>
+ * Every criteria that has been set needs to be fulfilled by a message in order to match.
+ * All embed criteria need to be fulfilled by the same embed.
+ * <pre>
+ * MessageMatcher matcher=new MessageMatcherBuilder()
+ * 		.setAuthor(bot)
+ * 		.setEmbedTitle("Help")
+ * 		.addEmbedField("ping", "Pong!")
+ * 		.build();
+ * Message msg=TestUtils.getMessage(matcher);
+ * </pre>
+ */
+public class MessageMatcherBuilder {
+
+	private long authorId=0;
+	private String content=null;
+	private Pattern contentPattern=null;
+	private String embedTitle=null;
+	private String embedDescription=null;
+	private final List<String> fieldNames=new ArrayList<>();
+	private final List<String> fieldValues=new ArrayList<>();
+
+	/**
+	 * requires messages to be sent by a specific user
+	 * @param author the author or <code>null</code> if messages from any user should match
+	 * @return this builder
+	 */
+	public MessageMatcherBuilder setAuthor(User author) {
+		this.authorId=author==null?0:author.getIdLong();
+		return this;
+	}
+	/**
+	 * requires messages to be sent by a specific user
+	 * @param authorId the Snowflake ID of the author or <code>0</code> if messages from any user should match
+	 * @return this builder
+	 */
+	public MessageMatcherBuilder setAuthorId(long authorId) {
+		this.authorId=authorId;
+		return this;
+	}
+	/**
+	 * requires the raw content of messages to be equal to a String<br>
+	 * This replaces a content pattern.
+	 * @param content the content or <code>null</code> if messages with any content should match
+	 * @return this builder
+	 * @see Message#getContentRaw()
+	 */
+	public MessageMatcherBuilder setContent(String content) {
+		this.content=content;
+		this.contentPattern=null;
+		return this;
+	}
+	/**
+	 * requires the whole raw content of messages to match a regular expression<br>
+	 * The expression is compiled once. This replaces a content set using {@link MessageMatcherBuilder#setContent(String)}.
+	 * @param regex the regular expression or <code>null</code> if messages with any content should match
+	 * @return this builder
+	 * @see Message#getContentRaw()
+	 */
+	public MessageMatcherBuilder setContentPattern(String regex) {
+		this.contentPattern=regex==null?null:Pattern.compile(regex);
+		this.content=null;
+		return this;
+	}
+	/**
+	 * requires messages to contain an embed with a specific title
+	 * @param title the title or <code>null</code> if embeds with any title should match
+	 * @return this builder
+	 */
+	public MessageMatcherBuilder setEmbedTitle(String title) {
+		this.embedTitle=title;
+		return this;
+	}
+	/**
+	 * requires messages to contain an embed with a specific description
+	 * @param description the description or <code>null</code> if embeds with any description should match
+	 * @return this builder
+	 */
+	public MessageMatcherBuilder setEmbedDescription(String description) {
+		this.embedDescription=description;
+		return this;
+	}
+	/**
+	 * requires messages to contain an embed with a field with a specific name and value
+	 * @param name the name of the field
+	 * @param value the value of the field
+	 * @return this builder
+	 */
+	public MessageMatcherBuilder addEmbedField(String name,String value) {
+		fieldNames.add(name);
+		fieldValues.add(value);
+		return this;
+	}
+	/**
+	 * creates a {@link MessageMatcher} using the criteria of this builder<br>
+	 * Changing the builder afterwards does not affect the matcher.
+	 * @return the {@link MessageMatcher}
+	 */
+	public MessageMatcher build() {
+		return new MessageMatcher(authorId, content, contentPattern, embedTitle, embedDescription,
+				fieldNames.toArray(new String[0]), fieldValues.toArray(new String[0]));
+	}
+}
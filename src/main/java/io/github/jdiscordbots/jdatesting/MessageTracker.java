@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageTracker.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import io.github.jdiscordbots.jdatesting.InteractionTrace.Span;
+import io.github.jdiscordbots.jdatesting.RestScheduler.Priority;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.events.message.MessageBulkDeleteEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageDeleteEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.requests.RestAction;
+
+/**
+ * keeps track of the IDs of all messages that have been sent by the tester or the bot during the tests<br>
+ * The IDs are stored per channel in primitive sets so they can be deleted in bulk without retrieving the message history.
+ * Messages sent by the tester and messages that have been claimed as replies to commands are tracked separately.<br>
+ * Messages of the bot are only tracked in channels that are used by the tests, so messages the bot sends in other channels during the tests are not deleted.
+ */
+final class MessageTracker extends ListenerAdapter {
+
+	static final int MAX_MESSAGES_PER_BULK_DELETE=100;
+
+	private final Map<Long, TLongSet> messages=new ConcurrentHashMap<>();
+	private final TLongSet channels=new TLongHashSet();
+	private final TLongSet sent=new TLongHashSet();
+	private final TLongSet claimed=new TLongHashSet();
+	private final List<PendingSend> pendingSends=new ArrayList<>();
+
+	/**
+	 * adds the ID of a {@link Message} to the messages that should be deleted when the tests are done
+	 * @param tc the {@link TextChannel} where the message was sent
+	 * @param messageId the Snowflake ID of the message
+	 */
+	void track(TextChannel tc,long messageId) {
+		TLongSet ids=messages.computeIfAbsent(tc.getIdLong(), id->new TLongHashSet());
+		synchronized(ids) {
+			ids.add(messageId);
+		}
+	}
+	/**
+	 * marks a {@link TextChannel} as used by the tests so messages the bot sends in it are deleted when the tests are done
+	 * @param tc the {@link TextChannel}
+	 */
+	void watch(TextChannel tc) {
+		synchronized(channels) {
+			channels.add(tc.getIdLong());
+		}
+	}
+	private boolean isWatched(long channelId) {
+		synchronized(channels) {
+			return channels.contains(channelId);
+		}
+	}
+	/**
+	 * marks a message as being sent by the tester before the request is executed<br>
+	 * The message may be received over the gateway before the request is done.
+	 * Until then, the first received message of the account in the channel with the same content is assumed to be the sent message.
+	 * Later messages with the same content (e.g. a reply of the bot repeating the message) are not affected.
+	 * @param account the {@link TesterAccount} sending the message
+	 * @param tc the {@link TextChannel} where the message is sent
+	 * @param content the content of the message
+	 * @return the pending send that needs to be passed to {@link MessageTracker#afterSend(PendingSend, Message)}
+	 */
+	PendingSend beforeSend(TesterAccount account,TextChannel tc,String content) {
+		PendingSend send=new PendingSend(account.getUser().getIdLong(), tc.getIdLong(), content);
+		synchronized(pendingSends) {
+			pendingSends.add(send);
+		}
+		return send;
+	}
+	/**
+	 * tracks a message that has been sent by the tester
+	 * @param send the pending send as returned by {@link MessageTracker#beforeSend(TesterAccount, TextChannel, String)}
+	 * @param msg the sent {@link Message} or <code>null</code> if the message could not be sent
+	 */
+	void afterSend(PendingSend send,Message msg) {
+		if(msg!=null) {
+			track(msg.getTextChannel(), msg.getIdLong());
+			synchronized(sent) {
+				sent.add(msg.getIdLong());
+			}
+		}
+		synchronized(pendingSends) {
+			pendingSends.remove(send);
+		}
+	}
+	/**
+	 * checks if a message has been sent by the tester
+	 * @param msg the {@link Message}
+	 * @return <code>true</code> if the message has been sent by the tester or is being sent, else <code>false</code>
+	 */
+	boolean isSentByTester(Message msg) {
+		synchronized(sent) {
+			if(sent.contains(msg.getIdLong())) {
+				return true;
+			}
+		}
+		synchronized(pendingSends) {
+			return !pendingSends.isEmpty()&&assignPendingSend(msg);
+		}
+	}
+	/**
+	 * checks if a message belongs to a pending send and assigns it to the first matching pending send that has no message yet<br>
+	 * Messages are received in the order they have been sent, so the message of a send is assigned before any repetition of it.
+	 * The caller needs to hold the lock of the pending sends.
+	 * @param msg the {@link Message}
+	 * @return <code>true</code> if the message belongs to a pending send, else <code>false</code>
+	 */
+	private boolean assignPendingSend(Message msg) {
+		PendingSend unassigned=null;
+		for (PendingSend send : pendingSends) {
+			if(send.messageId==msg.getIdLong()) {
+				return true;
+			}
+			if(unassigned==null&&send.messageId==0&&send.matches(msg)) {
+				unassigned=send;
+			}
+		}
+		if(unassigned!=null) {
+			unassigned.messageId=msg.getIdLong();
+			return true;
+		}
+		return false;
+	}
+	/**
+	 * claims a message as reply to a command so it is not used as reply to another command
+	 * @param messageId the Snowflake ID of the reply
+	 * @return <code>true</code> if the message has been claimed, <code>false</code> if it has already been claimed before
+	 */
+	boolean claim(long messageId) {
+		synchronized(claimed) {
+			return claimed.add(messageId);
+		}
+	}
+	private boolean untrack(long channelId,long messageId) {
+		TLongSet ids=messages.get(channelId);
+		if(ids!=null) {
+			synchronized(ids) {
+				return ids.remove(messageId);
+			}
+		}
+		return false;
+	}
+	/**
+	 * deletes messages in a {@link TextChannel} without waiting until they have been deleted<br>
+	 * The messages are deleted using as few requests as possible and are not deleted again when the tests are done.
+	 * Messages that are not tracked any more because they have already been deleted (e.g. by {@link MessageTracker#flush(long)}) are skipped.
+	 * The deletion is deferred until no other requests are executed.
+	 * @param tc the {@link TextChannel} where the messages were sent
+	 * @param ids the Snowflake IDs of the messages
+	 * @param test the name of the test the messages are deleted for, used for tracing
+	 */
+	void delete(TextChannel tc,long[] ids,String test) {
+		TLongList tracked=new TLongArrayList(ids.length);
+		for (long id : ids) {
+			if(untrack(tc.getIdLong(), id)) {
+				tracked.add(id);
+			}
+		}
+		if(tracked.isEmpty()) {
+			return;
+		}
+		for (RestAction<Void> action : createDeletions(tc, tracked.toArray())) {
+			submitDeletion(tc, action, test);
+		}
+	}
+	/**
+	 * deletes all tracked messages in all channels and waits until they have been deleted<br>
+	 * The messages are deleted using the shard the channel belongs to.
+	 * Failing to delete the messages of a channel does not prevent deleting the messages of other channels.
+	 */
+	void deleteAll() {
+		for (Map.Entry<Long, TLongSet> entry : messages.entrySet()) {
+			long[] ids=untrackAll(entry.getValue());
+			try {
+				TextChannel tc=TestUtils.getTextChannelById(entry.getKey());
+				if(tc==null) {
+					continue;
+				}
+				for (RestAction<Void> action : createDeletions(tc, ids)) {
+					try {
+						submitDeletion(tc, action, null).join();
+					}catch(RuntimeException e) {
+						//the remaining messages should still be deleted
+					}
+				}
+			}catch(RuntimeException e) {
+				//the messages of the remaining channels should still be deleted
+			}
+		}
+	}
+	/**
+	 * deletes all tracked messages in all channels that have been sent before a certain time without waiting until they have been deleted<br>
+	 * This is used for cleaning up continuously during long running tests.
+	 * Newer messages are kept as they may still be awaited by other tests, e.g. in a leased channel.
+	 * The messages are untracked, so messages that are still waiting for being deleted automatically by a {@link TestContext} are not deleted twice.
+	 * @param epochMillis the time in milliseconds since the unix epoch
+	 */
+	void flush(long epochMillis) {
+		String test=TestUtils.getTrace().getTestName();
+		long maxId=TestUtils.getIdAt(epochMillis);
+		for (Map.Entry<Long, TLongSet> entry : messages.entrySet()) {
+			TextChannel tc=TestUtils.getTextChannelById(entry.getKey());
+			long[] ids=untrackBefore(entry.getValue(), maxId);
+			if(tc!=null&&ids.length>0) {
+				for (RestAction<Void> action : createDeletions(tc, ids)) {
+					submitDeletion(tc, action, test);
+				}
+			}
+		}
+	}
+	private static long[] untrackAll(TLongSet channelIds) {
+		synchronized(channelIds) {
+			long[] ids=channelIds.toArray();
+			channelIds.clear();
+			return ids;
+		}
+	}
+	private static long[] untrackBefore(TLongSet channelIds,long maxId) {
+		TLongList ids=new TLongArrayList();
+		synchronized(channelIds) {
+			TLongIterator it=channelIds.iterator();
+			while(it.hasNext()) {
+				long id=it.next();
+				if(id<maxId) {
+					ids.add(id);
+					it.remove();
+				}
+			}
+		}
+		return ids.toArray();
+	}
+	/**
+	 * forgets which messages have been sent by the tester or claimed as replies before a certain time<br>
+	 * Messages sent before that time are not expected to be received or awaited any more.
+	 * @param epochMillis the time in milliseconds since the unix epoch
+	 */
+	void prune(long epochMillis) {
+		long minId=TestUtils.getIdAt(epochMillis);
+		for (TLongSet ids : new TLongSet[] {sent, claimed}) {
+			synchronized(ids) {
+				TLongIterator it=ids.iterator();
+				while(it.hasNext()) {
+					if(it.next()<minId) {
+						it.remove();
+					}
+				}
+			}
+		}
+	}
+	/**
+	 * executes a request for deleting messages with the lowest priority
+	 * @param tc the {@link TextChannel} where the messages were sent
+	 * @param action the request
+	 * @param test the name of the test the messages are deleted for, used for tracing
+	 * @return a {@link CompletableFuture} that is completed when the messages have been deleted
+	 */
+	private static CompletableFuture<Void> submitDeletion(TextChannel tc,RestAction<Void> action,String test) {
+		Span span=TestUtils.getTrace().start("cleanup", tc, null, test);
+		CompletableFuture<Void> future=TestUtils.getRestScheduler().submit(Priority.CLEANUP, action);
+		future.whenComplete((result,e)->span.end());
+		return future;
+	}
+	/**
+	 * creates the requests for deleting messages in chunks of {@link MessageTracker#MAX_MESSAGES_PER_BULK_DELETE} messages<br>
+	 * Bulk deletions need the permission to manage messages, without it every message is deleted on its own.
+	 * @param tc the {@link TextChannel} where the messages were sent
+	 * @param ids the Snowflake IDs of the messages
+	 * @return the requests
+	 */
+	static List<RestAction<Void>> createDeletions(TextChannel tc,long[] ids) {
+		if(!tc.getGuild().getSelfMember().hasPermission(tc, Permission.MESSAGE_MANAGE)) {
+			List<RestAction<Void>> actions=new ArrayList<>(ids.length);
+			for (long id : ids) {
+				actions.add(tc.deleteMessageById(id));
+			}
+			return actions;
+		}
+		List<RestAction<Void>> actions=new ArrayList<>(ids.length/MAX_MESSAGES_PER_BULK_DELETE+1);
+		for (int i = 0; i < ids.length; i+=MAX_MESSAGES_PER_BULK_DELETE) {
+			int end=Math.min(ids.length, i+MAX_MESSAGES_PER_BULK_DELETE);
+			if(end-i==1) {
+				//bulk deletions need at least 2 messages
+				actions.add(tc.deleteMessageById(ids[i]));
+			}else {
+				List<String> chunk=new ArrayList<>(end-i);
+				for (int j = i; j < end; j++) {
+					chunk.add(Long.toUnsignedString(ids[j]));
+				}
+				actions.add(tc.deleteMessagesByIds(chunk));
+			}
+		}
+		return actions;
+	}
+	@Override
+	public void onGuildMessageReceived(GuildMessageReceivedEvent event) {
+		Message msg=event.getMessage();
+		synchronized(pendingSends) {
+			if(!pendingSends.isEmpty()) {
+				assignPendingSend(msg);
+			}
+		}
+		if(event.getAuthor().equals(event.getJDA().getSelfUser())&&isWatched(event.getChannel().getIdLong())&&TestUtils.isMessageSentDuringTest(msg)) {
+			track(event.getChannel(), msg.getIdLong());
+		}
+	}
+	@Override
+	public void onGuildMessageDelete(GuildMessageDeleteEvent event) {
+		untrack(event.getChannel().getIdLong(), event.getMessageIdLong());
+	}
+	@Override
+	public void onMessageBulkDelete(MessageBulkDeleteEvent event) {
+		for (String id : event.getMessageIds()) {
+			untrack(event.getChannel().getIdLong(), Long.parseUnsignedLong(id));
+		}
+	}
+
+	/**
+	 * a message of a tester account whose request has not completed yet
+	 */
+	static final class PendingSend{
+		private final long authorId;
+		private final long channelId;
+		private final String content;
+		//the ID of the received message of this send or 0 if it has not been received yet
+		private long messageId=0;
+
+		private PendingSend(long authorId,long channelId,String content) {
+			this.authorId=authorId;
+			this.channelId=channelId;
+			this.content=content.trim();
+		}
+		private boolean matches(Message msg) {
+			return msg.getAuthor().getIdLong()==authorId
+					&&msg.getChannel().getIdLong()==channelId
+					&&content.equals(msg.getContentRaw().trim());
+		}
+	}
+}
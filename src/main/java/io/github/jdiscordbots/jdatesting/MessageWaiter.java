@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageWaiter.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+
+/**
+ * listener that completes pending awaits as soon as a matching {@link Message} is received over the gateway<br>
+ * Awaits are buffered per {@link TextChannel} so a received message is only tested against awaits of its own channel.
+ */
+final class MessageWaiter extends ListenerAdapter {
+
+	private final Map<Long, Queue<PendingMessage>> pending=new ConcurrentHashMap<>();
+
+	/**
+	 * registers an await for a {@link Message} in a {@link TextChannel}<br>
+	 * The await is removed as soon as the returned future is completed or cancelled.
+	 * @param tc the {@link TextChannel}
+	 * @param tester a function that returns <code>true</code> if a message is the correct message
+	 * @return a future that is completed with the first received {@link Message} that fulfills the criteria
+	 */
+	CompletableFuture<Message> await(TextChannel tc,Predicate<Message> tester) {
+		Queue<PendingMessage> channelAwaits=pending.computeIfAbsent(tc.getIdLong(), id->new ConcurrentLinkedQueue<>());
+		PendingMessage await=new PendingMessage(tester);
+		channelAwaits.add(await);
+		await.future.whenComplete((msg,e)->channelAwaits.remove(await));
+		return await.future;
+	}
+
+	@Override
+	public void onGuildMessageReceived(GuildMessageReceivedEvent event) {
+		Queue<PendingMessage> channelAwaits=pending.get(event.getChannel().getIdLong());
+		if(channelAwaits==null) {
+			return;
+		}
+		Message msg=event.getMessage();
+		for (PendingMessage await : channelAwaits) {
+			await.test(msg);
+		}
+	}
+
+	private static final class PendingMessage{
+		private final Predicate<Message> tester;
+		private final CompletableFuture<Message> future=new CompletableFuture<>();
+
+		private PendingMessage(Predicate<Message> tester) {
+			this.tester=tester;
+		}
+
+		private void test(Message msg) {
+			if(future.isDone()) {
+				return;
+			}
+			try {
+				if(tester.test(msg)) {
+					future.complete(msg);
+				}
+			}catch(RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+		}
+	}
+}
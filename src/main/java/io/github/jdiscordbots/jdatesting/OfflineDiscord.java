@@ -0,0 +1,479 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: OfflineDiscord.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import okhttp3.OkHttpClient;
+
+/**
+ * local in-memory stand-in for Discord that allows running feature tests without a network connection<br>
+ * It is started if the <code>jda-tests.properties</code> contains <code>testing-offline=true</code>.
+ * It provides one guild containing the testing channels and all users that connected to it.
+ * REST requests are answered by an interceptor of the HTTP client, gateway events are sent by a local WebSocket server.
+ * Every configured builder registers a user for the token it uses, requests and identifies using any other token are rejected as unauthorized.
+ * The <i>jda-factory-method</i> needs to pass its {@link JDABuilder} to {@link OfflineDiscord#configure(JDABuilder)} so the bot connects to it.
+ * Sharded bots pass their {@link DefaultShardManagerBuilder} to {@link OfflineDiscord#configure(DefaultShardManagerBuilder)}, the guild is only sent to the shard it belongs to.
+ * The number of shards recommended to the bot can be set using <i>testing-offline-shards</i> (default: 1).<br>
+ * The stand-in does not call the listeners of the bot directly. REST requests never leave the HTTP client, but events are sent through a WebSocket on the loopback interface
+ * and JDA still hands requests and events over between its own threads. A command and its reply take two REST requests and two gateway events,
+ * so the latency floor of an offline feature test is in the order of a millisecond instead of the hundreds of milliseconds of a connection to Discord.
+ */
+public final class OfflineDiscord {
+
+	private static final long DISCORD_EPOCH=1420070400000L;
+	private static final long ADMINISTRATOR_PERMISSION=8;
+	private static final Pattern USER_MENTION=Pattern.compile("<@!?(\\d+)>");
+	private static volatile OfflineDiscord instance=null;
+
+	private final AtomicLong lastId=new AtomicLong();
+	private final long guildId;
+	private final int shards;
+	private final Map<Long, String> channels=new LinkedHashMap<>();
+	private final Map<String, Long> usersByToken=new LinkedHashMap<>();
+	private final Map<Long, DataObject> users=new LinkedHashMap<>();
+	private final Map<Long, NavigableMap<Long, StoredMessage>> messages=new ConcurrentHashMap<>();
+	private final String startTime;
+	private final OfflineGateway gateway;
+
+	private OfflineDiscord(Properties props) throws IOException {
+		guildId=nextId();
+		startTime=format(guildId);
+		shards=Integer.parseInt(props.getProperty("testing-offline-shards", "1"));
+		addChannel(props.getProperty("testing-channel"), "testing");
+		String channelIds=props.getProperty("testing-channels");
+		if(channelIds!=null) {
+			int i=1;
+			for (String channelId : channelIds.split(",")) {
+				addChannel(channelId.trim(), "testing-"+i++);
+			}
+		}
+		gateway=new OfflineGateway(this);
+	}
+	private void addChannel(String id,String name) {
+		long channelId;
+		if(id==null) {
+			channelId=nextId();
+		}else {
+			channelId=Long.parseUnsignedLong(id);
+		}
+		if(!channels.containsKey(channelId)) {
+			channels.put(channelId, name);
+			messages.put(channelId, new ConcurrentSkipListMap<>());
+		}
+	}
+	/**
+	 * starts the offline stand-in if it has not been started yet
+	 * @param props the properties loaded from the <code>jda-tests.properties</code>
+	 * @throws IOException if the local gateway cannot be started
+	 */
+	static synchronized void start(Properties props) throws IOException {
+		if(instance==null) {
+			instance=new OfflineDiscord(props);
+		}
+	}
+	/**
+	 * stops the offline stand-in if it is running
+	 */
+	static synchronized void stop() {
+		if(instance!=null) {
+			instance.gateway.close();
+			instance=null;
+		}
+	}
+	/**
+	 * gets the running offline stand-in
+	 * @return the offline stand-in or <code>null</code> if it is not running
+	 */
+	static OfflineDiscord getInstance() {
+		return instance;
+	}
+	/**
+	 * checks if the offline stand-in is running
+	 * @return <code>true</code> if tests run offline, else <code>false</code>
+	 */
+	public static boolean isRunning() {
+		return instance!=null;
+	}
+	/**
+	 * configures a {@link JDABuilder} to connect to the offline stand-in if it is running<br>
+	 * If the tests do not run offline, the builder is not changed. This method should be called by the <i>jda-factory-method</i> before building the JDA instance.
+	 * @param builder the {@link JDABuilder}
+	 * @return the same {@link JDABuilder}
+	 */
+	public static JDABuilder configure(JDABuilder builder) {
+		OfflineDiscord discord=instance;
+		if(discord!=null) {
+			builder.setHttpClient(discord.createHttpClient());
+		}
+		return builder;
+	}
+	/**
+	 * configures a {@link DefaultShardManagerBuilder} to connect to the offline stand-in if it is running<br>
+	 * If the tests do not run offline, the builder is not changed. This method should be called by the <i>jda-factory-method</i> of a sharded bot before building the {@link net.dv8tion.jda.api.sharding.ShardManager ShardManager}.
+	 * @param builder the {@link DefaultShardManagerBuilder}
+	 * @return the same {@link DefaultShardManagerBuilder}
+	 */
+	public static DefaultShardManagerBuilder configure(DefaultShardManagerBuilder builder) {
+		OfflineDiscord discord=instance;
+		if(discord!=null) {
+			builder.setHttpClient(discord.createHttpClient());
+		}
+		return builder;
+	}
+	/**
+	 * creates an HTTP client answering the requests of one configured builder<br>
+	 * The user of the client is registered using the token of its first request.
+	 * @return the HTTP client
+	 */
+	OkHttpClient createHttpClient() {
+		return new OkHttpClient.Builder().addInterceptor(new OfflineRestInterceptor(this)).build();
+	}
+	String getGatewayUrl() {
+		return gateway.getUrl();
+	}
+	/**
+	 * gets the number of shards recommended to clients, specified using <i>testing-offline-shards</i>
+	 * @return the number of shards
+	 */
+	int getRecommendedShards() {
+		return shards;
+	}
+	/**
+	 * checks if the guild belongs to a shard
+	 * @param shardId the ID of the shard
+	 * @param shardTotal the total number of shards
+	 * @return <code>true</code> if events of the guild are sent to the shard, else <code>false</code>
+	 */
+	boolean isOnShard(int shardId,int shardTotal) {
+		return (guildId>>>22)%shardTotal==shardId;
+	}
+	long nextId() {
+		long id=(System.currentTimeMillis()-DISCORD_EPOCH)<<22;
+		return lastId.updateAndGet(last->Math.max(last+1, id));
+	}
+	private static String format(long id) {
+		return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(OffsetDateTime.ofInstant(Instant.ofEpochMilli((id>>>22)+DISCORD_EPOCH), ZoneOffset.UTC));
+	}
+	/**
+	 * gets the user that belongs to a registered token
+	 * @param token the token with or without the <code>Bot </code> prefix
+	 * @return the user as JSON or <code>null</code> if the token has not been registered
+	 * @see OfflineDiscord#register(String)
+	 */
+	DataObject getUser(String token) {
+		synchronized(users) {
+			Long userId=usersByToken.get(stripPrefix(token));
+			return userId==null?null:users.get(userId);
+		}
+	}
+	private static String stripPrefix(String token) {
+		return token.startsWith("Bot ")?token.substring(4):token;
+	}
+	/**
+	 * gets the user that belongs to a token and creates it if it does not exist yet<br>
+	 * Newly created users are added to the guild. This is only called for the token used by a configured builder.
+	 * @param token the token with or without the <code>Bot </code> prefix
+	 * @return the user as JSON
+	 */
+	DataObject register(String token) {
+		token=stripPrefix(token);
+		DataObject user;
+		boolean created=false;
+		synchronized(users) {
+			Long userId=usersByToken.get(token);
+			if(userId==null) {
+				userId=nextId();
+				int num=users.size()+1;
+				user=DataObject.empty()
+						.put("id", Long.toUnsignedString(userId))
+						.put("username", "Offline User "+num)
+						.put("discriminator", String.format("%04d", num%10000))
+						.put("avatar", null)
+						.put("bot", true)
+						.put("verified", true)
+						.put("mfa_enabled", false);
+				usersByToken.put(token, userId);
+				users.put(userId, user);
+				created=true;
+			}else {
+				user=users.get(userId);
+			}
+		}
+		if(created) {
+			gateway.dispatch("GUILD_MEMBER_ADD", createMember(user).put("guild_id", Long.toUnsignedString(guildId)));
+		}
+		return user;
+	}
+	DataObject getUserById(long id) {
+		synchronized(users) {
+			return users.get(id);
+		}
+	}
+	private DataObject createMember(DataObject user) {
+		return DataObject.empty()
+				.put("user", user)
+				.put("roles", DataArray.empty())
+				.put("nick", null)
+				.put("joined_at", startTime)
+				.put("premium_since", null)
+				.put("deaf", false)
+				.put("mute", false);
+	}
+	DataObject createReady(DataObject user,String sessionId,int shardId,int shardTotal) {
+		DataArray guilds=DataArray.empty();
+		if(isOnShard(shardId, shardTotal)) {
+			guilds.add(DataObject.empty().put("id", Long.toUnsignedString(guildId)).put("unavailable", true));
+		}
+		return DataObject.empty()
+				.put("v", 6)
+				.put("user", user)
+				.put("session_id", sessionId)
+				.put("shard", DataArray.empty().add(shardId).add(shardTotal))
+				.put("guilds", guilds)
+				.put("private_channels", DataArray.empty())
+				.put("relationships", DataArray.empty())
+				.put("_trace", DataArray.empty().add("offline"));
+	}
+	DataObject createGuild() {
+		String id=Long.toUnsignedString(guildId);
+		DataArray members=DataArray.empty();
+		String ownerId=null;
+		synchronized(users) {
+			for (Map.Entry<Long, DataObject> user : users.entrySet()) {
+				if(ownerId==null) {
+					ownerId=Long.toUnsignedString(user.getKey());
+				}
+				members.add(createMember(user.getValue()));
+			}
+		}
+		DataArray channelArray=DataArray.empty();
+		int position=0;
+		for (Map.Entry<Long, String> channel : channels.entrySet()) {
+			channelArray.add(DataObject.empty()
+					.put("id", Long.toUnsignedString(channel.getKey()))
+					.put("type", 0)
+					.put("guild_id", id)
+					.put("name", channel.getValue())
+					.put("topic", null)
+					.put("nsfw", false)
+					.put("position", position++)
+					.put("rate_limit_per_user", 0)
+					.put("parent_id", null)
+					.put("last_message_id", null)
+					.put("permission_overwrites", DataArray.empty()));
+		}
+		DataObject everyone=DataObject.empty()
+				.put("id", id)
+				.put("name", "@everyone")
+				.put("color", 0)
+				.put("position", 0)
+				.put("permissions", ADMINISTRATOR_PERMISSION)
+				.put("managed", false)
+				.put("hoist", false)
+				.put("mentionable", false);
+		return DataObject.empty()
+				.put("id", id)
+				.put("name", "Offline Guild")
+				.put("icon", null)
+				.put("splash", null)
+				.put("banner", null)
+				.put("description", null)
+				.put("vanity_url_code", null)
+				.put("owner_id", ownerId)
+				.put("region", "offline")
+				.put("afk_channel_id", null)
+				.put("afk_timeout", 300)
+				.put("system_channel_id", null)
+				.put("verification_level", 0)
+				.put("default_message_notifications", 0)
+				.put("explicit_content_filter", 0)
+				.put("mfa_level", 0)
+				.put("premium_tier", 0)
+				.put("premium_subscription_count", 0)
+				.put("max_members", 250000)
+				.put("max_presences", 5000)
+				.put("preferred_locale", "en-US")
+				.put("joined_at", startTime)
+				.put("large", false)
+				.put("unavailable", false)
+				.put("member_count", members.length())
+				.put("members", members)
+				.put("roles", DataArray.empty().add(everyone))
+				.put("channels", channelArray)
+				.put("emojis", DataArray.empty())
+				.put("voice_states", DataArray.empty())
+				.put("presences", DataArray.empty())
+				.put("features", DataArray.empty());
+	}
+	boolean hasChannel(long channelId) {
+		return messages.containsKey(channelId);
+	}
+	/**
+	 * stores a new message and sends it to all connected clients
+	 * @param channelId the Snowflake ID of the channel
+	 * @param authorId the Snowflake ID of the author
+	 * @param content the raw content
+	 * @param embed the embed as JSON or <code>null</code> if the message does not contain an embed
+	 * @return the message as JSON
+	 */
+	DataObject createMessage(long channelId,long authorId,String content,DataObject embed) {
+		StoredMessage msg=new StoredMessage(nextId(), channelId, authorId, content, embed);
+		messages.get(channelId).put(msg.id, msg);
+		gateway.dispatch("MESSAGE_CREATE", toJson(msg).put("guild_id", Long.toUnsignedString(guildId)).put("member", createMember(getUserById(authorId))));
+		return toJson(msg);
+	}
+	DataObject editMessage(long channelId,long messageId,String content,DataObject embed) {
+		StoredMessage msg=messages.get(channelId).get(messageId);
+		if(msg==null) {
+			return null;
+		}
+		synchronized(msg) {
+			if(content!=null) {
+				msg.content=content;
+			}
+			if(embed!=null) {
+				msg.embed=embed;
+			}
+			msg.editedId=nextId();
+		}
+		gateway.dispatch("MESSAGE_UPDATE", toJson(msg).put("guild_id", Long.toUnsignedString(guildId)));
+		return toJson(msg);
+	}
+	DataObject getMessage(long channelId,long messageId) {
+		StoredMessage msg=messages.get(channelId).get(messageId);
+		return msg==null?null:toJson(msg);
+	}
+	/**
+	 * gets messages of a channel like the message history endpoint
+	 * @param channelId the Snowflake ID of the channel
+	 * @param before only messages older than this ID are returned or <code>0</code> if there is no upper bound
+	 * @param after only messages newer than this ID are returned or <code>0</code> if there is no lower bound
+	 * @param limit the maximum number of messages
+	 * @return the messages as JSON, newest first
+	 */
+	DataArray getMessages(long channelId,long before,long after,int limit) {
+		NavigableMap<Long, StoredMessage> channelMessages=messages.get(channelId);
+		List<StoredMessage> selected=new ArrayList<>();
+		if(after!=0) {
+			//the messages directly after the ID are returned
+			for (StoredMessage msg : channelMessages.tailMap(after, false).values()) {
+				if(selected.size()>=limit) {
+					break;
+				}
+				selected.add(msg);
+			}
+			Collections.reverse(selected);
+		}else {
+			NavigableMap<Long, StoredMessage> range=before==0?channelMessages:channelMessages.headMap(before, false);
+			for (StoredMessage msg : range.descendingMap().values()) {
+				if(selected.size()>=limit) {
+					break;
+				}
+				selected.add(msg);
+			}
+		}
+		DataArray ret=DataArray.empty();
+		for (StoredMessage msg : selected) {
+			ret.add(toJson(msg));
+		}
+		return ret;
+	}
+	boolean deleteMessage(long channelId,long messageId) {
+		if(messages.get(channelId).remove(messageId)==null) {
+			return false;
+		}
+		gateway.dispatch("MESSAGE_DELETE", DataObject.empty()
+				.put("id", Long.toUnsignedString(messageId))
+				.put("channel_id", Long.toUnsignedString(channelId))
+				.put("guild_id", Long.toUnsignedString(guildId)));
+		return true;
+	}
+	void deleteMessages(long channelId,Collection<Long> messageIds) {
+		NavigableMap<Long, StoredMessage> channelMessages=messages.get(channelId);
+		DataArray deleted=DataArray.empty();
+		for (Long messageId : messageIds) {
+			if(channelMessages.remove(messageId)!=null) {
+				deleted.add(Long.toUnsignedString(messageId));
+			}
+		}
+		gateway.dispatch("MESSAGE_DELETE_BULK", DataObject.empty()
+				.put("ids", deleted)
+				.put("channel_id", Long.toUnsignedString(channelId))
+				.put("guild_id", Long.toUnsignedString(guildId)));
+	}
+	private DataObject toJson(StoredMessage msg) {
+		DataArray mentions=DataArray.empty();
+		DataArray embeds=DataArray.empty();
+		synchronized(msg) {
+			Matcher matcher=USER_MENTION.matcher(msg.content);
+			while(matcher.find()) {
+				DataObject user=getUserById(Long.parseUnsignedLong(matcher.group(1)));
+				if(user!=null) {
+					mentions.add(user);
+				}
+			}
+			if(msg.embed!=null) {
+				embeds.add(msg.embed);
+			}
+			return DataObject.empty()
+					.put("id", Long.toUnsignedString(msg.id))
+					.put("channel_id", Long.toUnsignedString(msg.channelId))
+					.put("type", 0)
+					.put("author", getUserById(msg.authorId))
+					.put("content", msg.content)
+					.put("timestamp", format(msg.id))
+					.put("edited_timestamp", msg.editedId==0?null:format(msg.editedId))
+					.put("tts", false)
+					.put("mention_everyone", false)
+					.put("mentions", mentions)
+					.put("mention_roles", DataArray.empty())
+					.put("attachments", DataArray.empty())
+					.put("embeds", embeds)
+					.put("pinned", false)
+					.put("flags", 0);
+		}
+	}
+
+	private static final class StoredMessage{
+		private final long id;
+		private final long channelId;
+		private final long authorId;
+		private String content;
+		private DataObject embed;
+		private long editedId=0;
+
+		private StoredMessage(long id,long channelId,long authorId,String content,DataObject embed) {
+			this.id=id;
+			this.channelId=channelId;
+			this.authorId=authorId;
+			this.content=content;
+			this.embed=embed;
+		}
+	}
+}
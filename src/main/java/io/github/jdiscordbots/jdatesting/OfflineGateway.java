@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: OfflineGateway.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Deflater;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+/**
+ * minimal local implementation of the Discord gateway used by {@link OfflineDiscord}<br>
+ * It accepts WebSocket connections on the loopback interface, handles identifying and heartbeats and sends dispatched events to all identified clients.
+ * Clients can only identify using tokens registered by a REST request of a configured builder, otherwise the connection is closed with the status code 4004 (authentication failed).
+ * Payloads are sent as JSON and compressed using a zlib stream if the client requests it.
+ */
+final class OfflineGateway implements Closeable {
+
+	private static final String WEBSOCKET_GUID="258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+	private static final int HEARTBEAT_INTERVAL=41250;
+	/**
+	 * maximum size of a message sent by a client in bytes, the real gateway does not accept larger payloads either
+	 */
+	private static final int MAX_MESSAGE_SIZE=4096;
+	private static final int CLOSE_MESSAGE_TOO_BIG=1009;
+	private static final int CLOSE_AUTHENTICATION_FAILED=4004;
+	private static final int OP_DISPATCH=0;
+	private static final int OP_HEARTBEAT=1;
+	private static final int OP_IDENTIFY=2;
+	private static final int OP_RESUME=6;
+	private static final int OP_INVALID_SESSION=9;
+	private static final int OP_HELLO=10;
+	private static final int OP_HEARTBEAT_ACK=11;
+
+	private final OfflineDiscord discord;
+	private final ServerSocket server;
+	private final List<Session> sessions=new CopyOnWriteArrayList<>();
+
+	OfflineGateway(OfflineDiscord discord) throws IOException {
+		this.discord=discord;
+		this.server=new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		Thread acceptor=new Thread(this::accept, "OfflineDiscord gateway");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+	String getUrl() {
+		return "ws://"+server.getInetAddress().getHostAddress()+":"+server.getLocalPort();
+	}
+	private void accept() {
+		while(!server.isClosed()) {
+			try {
+				Session session=new Session(server.accept());
+				Thread t=new Thread(session, "OfflineDiscord gateway session");
+				t.setDaemon(true);
+				t.start();
+			}catch(IOException e) {
+				//server closed
+			}
+		}
+	}
+	/**
+	 * sends an event of the guild to all identified clients of the shard the guild belongs to
+	 * @param type the event type, e.g. <code>MESSAGE_CREATE</code>
+	 * @param data the event data
+	 */
+	void dispatch(String type,DataObject data) {
+		for (Session session : sessions) {
+			if(session.hasGuild) {
+				session.dispatch(type, data);
+			}
+		}
+	}
+	@Override
+	public void close() {
+		try {
+			server.close();
+		}catch(IOException e) {
+			//ignore
+		}
+		for (Session session : sessions) {
+			session.close();
+		}
+	}
+
+	private final class Session implements Runnable{
+		private final Socket socket;
+		private DataInputStream in;
+		private OutputStream out;
+		private Deflater deflater;
+		private int seq=0;
+		private volatile boolean identified=false;
+		private volatile boolean hasGuild=false;
+
+		private Session(Socket socket) {
+			this.socket=socket;
+		}
+
+		@Override
+		public void run() {
+			try {
+				in=new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				out=new BufferedOutputStream(socket.getOutputStream());
+				handshake();
+				send(DataObject.empty().put("op", OP_HELLO).put("d", DataObject.empty().put("heartbeat_interval", HEARTBEAT_INTERVAL)));
+				byte[] msg;
+				while((msg=readMessage())!=null) {
+					handle(DataObject.fromJson(new String(msg, StandardCharsets.UTF_8)));
+				}
+			}catch(SocketException e) {
+				//connection closed
+			}catch(IOException|RuntimeException e) {
+				e.printStackTrace();
+			}finally {
+				close();
+			}
+		}
+		private void handshake() throws IOException {
+			String requestLine=readLine();
+			String key=null;
+			String line;
+			while(!(line=readLine()).isEmpty()) {
+				int separator=line.indexOf(':');
+				if(separator>0&&"sec-websocket-key".equalsIgnoreCase(line.substring(0, separator).trim())) {
+					key=line.substring(separator+1).trim();
+				}
+			}
+			if(key==null) {
+				throw new IOException("not a WebSocket handshake: "+requestLine);
+			}
+			if(requestLine.contains("compress=zlib-stream")) {
+				deflater=new Deflater();
+			}
+			String accept;
+			try {
+				accept=Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1").digest((key+WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII)));
+			}catch(NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+			synchronized(this) {
+				out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+						+ "Upgrade: websocket\r\n"
+						+ "Connection: Upgrade\r\n"
+						+ "Sec-WebSocket-Accept: "+accept+"\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+				out.flush();
+			}
+		}
+		private String readLine() throws IOException {
+			StringBuilder sb=new StringBuilder();
+			int c;
+			while((c=in.read())!='\n') {
+				if(c==-1) {
+					throw new SocketException("connection closed during handshake");
+				}
+				if(c!='\r') {
+					sb.append((char)c);
+				}
+			}
+			return sb.toString();
+		}
+		private void handle(DataObject payload) throws IOException {
+			switch(payload.getInt("op")) {
+			case OP_HEARTBEAT:
+				send(DataObject.empty().put("op", OP_HEARTBEAT_ACK));
+				break;
+			case OP_IDENTIFY:
+				DataObject identify=payload.getObject("d");
+				DataObject user=discord.getUser(identify.getString("token", ""));
+				if(user==null) {
+					writeClose(CLOSE_AUTHENTICATION_FAILED);
+					close();
+					return;
+				}
+				int shardId=0;
+				int shardTotal=1;
+				if(identify.hasKey("shard")&&!identify.isNull("shard")) {
+					DataArray shard=identify.getArray("shard");
+					shardId=(int)shard.getLong(0);
+					shardTotal=(int)shard.getLong(1);
+				}
+				synchronized(this) {
+					dispatch("READY", discord.createReady(user, UUID.randomUUID().toString(), shardId, shardTotal), true);
+					hasGuild=discord.isOnShard(shardId, shardTotal);
+					if(hasGuild) {
+						dispatch("GUILD_CREATE", discord.createGuild(), true);
+					}
+					identified=true;
+				}
+				sessions.add(this);
+				break;
+			case OP_RESUME:
+				//sessions cannot be resumed, the client needs to identify again
+				send(DataObject.empty().put("op", OP_INVALID_SESSION).put("d", false));
+				break;
+			default:
+				break;
+			}
+		}
+		private void dispatch(String type,DataObject data) {
+			dispatch(type, data, false);
+		}
+		private synchronized void dispatch(String type,DataObject data,boolean force) {
+			if(!identified&&!force) {
+				return;
+			}
+			try {
+				send(DataObject.empty().put("op", OP_DISPATCH).put("t", type).put("s", ++seq).put("d", data));
+			}catch(IOException e) {
+				close();
+			}
+		}
+		private synchronized void send(DataObject payload) throws IOException {
+			byte[] data=payload.toString().getBytes(StandardCharsets.UTF_8);
+			if(deflater==null) {
+				writeFrame(1, data);
+			}else {
+				deflater.setInput(data);
+				ByteArrayOutputStream compressed=new ByteArrayOutputStream();
+				byte[] buf=new byte[8192];
+				int len;
+				do {
+					len=deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+					compressed.write(buf, 0, len);
+				}while(len==buf.length);
+				writeFrame(2, compressed.toByteArray());
+			}
+		}
+		private void writeClose(int code) throws IOException {
+			writeFrame(8, new byte[] {(byte) (code>>>8),(byte) code});
+		}
+		private synchronized void writeFrame(int opcode,byte[] payload) throws IOException {
+			out.write(0x80|opcode);
+			if(payload.length<126) {
+				out.write(payload.length);
+			}else if(payload.length<=0xFFFF) {
+				out.write(126);
+				out.write(payload.length>>>8);
+				out.write(payload.length);
+			}else {
+				out.write(127);
+				long len=payload.length;
+				for (int i = 7; i >= 0; i--) {
+					out.write((int) (len>>>(8*i)));
+				}
+			}
+			out.write(payload);
+			out.flush();
+		}
+		/**
+		 * reads the next complete text or binary message from the client<br>
+		 * If a message is larger than {@link OfflineGateway#MAX_MESSAGE_SIZE}, the connection is closed with the status code 1009 (message too big) before the payload is read.
+		 * @return the message or <code>null</code> if the connection has been closed
+		 * @throws IOException if the message cannot be read
+		 */
+		private byte[] readMessage() throws IOException {
+			ByteArrayOutputStream message=new ByteArrayOutputStream();
+			while(true) {
+				int header=in.readUnsignedByte();
+				int lengthHeader=in.readUnsignedByte();
+				boolean fin=(header&0x80)!=0;
+				int opcode=header&0x0F;
+				long len=lengthHeader&0x7F;
+				if(len==126) {
+					len=in.readUnsignedShort();
+				}else if(len==127) {
+					len=in.readLong();
+				}
+				if(len<0||len>MAX_MESSAGE_SIZE-message.size()) {
+					writeClose(CLOSE_MESSAGE_TOO_BIG);
+					return null;
+				}
+				byte[] mask=new byte[4];
+				if((lengthHeader&0x80)!=0) {
+					in.readFully(mask);
+				}
+				byte[] payload=new byte[(int) len];
+				in.readFully(payload);
+				for (int i = 0; i < payload.length; i++) {
+					payload[i]^=mask[i%4];
+				}
+				switch(opcode) {
+				case 8://close
+					writeFrame(8, payload.length>=2?new byte[] {payload[0],payload[1]}:new byte[0]);
+					return null;
+				case 9://ping
+					writeFrame(10, payload);
+					break;
+				case 10://pong
+					break;
+				default:
+					message.write(payload);
+					if(fin) {
+						return message.toByteArray();
+					}
+					break;
+				}
+			}
+		}
+		private void close() {
+			sessions.remove(this);
+			try {
+				socket.close();
+			}catch(IOException e) {
+				//ignore
+			}
+			synchronized(this) {
+				if(deflater!=null) {
+					deflater.end();
+					deflater=null;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: OfflineRestInterceptor.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+/**
+ * HTTP interceptor that answers the REST requests of JDA using {@link OfflineDiscord} instead of sending them to Discord<br>
+ * Only the endpoints needed for sending, retrieving, editing and deleting messages are supported.
+ * Every interceptor belongs to the HTTP client of one configured builder and registers the token of its first request. Requests using other tokens are answered with <code>401 Unauthorized</code>.
+ */
+final class OfflineRestInterceptor implements Interceptor {
+
+	private static final MediaType JSON=MediaType.parse("application/json; charset=utf-8");
+	private static final int MAX_MESSAGES_PER_REQUEST=100;
+
+	private final OfflineDiscord discord;
+	private String token;
+
+	OfflineRestInterceptor(OfflineDiscord discord) {
+		this.discord=discord;
+	}
+
+	@Override
+	public Response intercept(Chain chain) throws IOException {
+		Request request=chain.request();
+		DataObject user=authorize(request.header("Authorization"));
+		if(user==null) {
+			return error(request, 401, 0, "401: Unauthorized");
+		}
+		List<String> path=new ArrayList<>(request.url().pathSegments());
+		//remove api/v6
+		if(!path.isEmpty()&&"api".equals(path.get(0))) {
+			path.remove(0);
+		}
+		if(!path.isEmpty()&&path.get(0).matches("v\\d+")) {
+			path.remove(0);
+		}
+		String method=request.method();
+		if(path.size()==1&&"gateway".equals(path.get(0))) {
+			return respond(request, 200, DataObject.empty().put("url", discord.getGatewayUrl()));
+		}
+		if(path.size()==2&&"gateway".equals(path.get(0))&&"bot".equals(path.get(1))) {
+			return respond(request, 200, DataObject.empty()
+					.put("url", discord.getGatewayUrl())
+					.put("shards", discord.getRecommendedShards())
+					.put("session_start_limit", DataObject.empty().put("total", 1000).put("remaining", 1000).put("reset_after", 0).put("max_concurrency", 1)));
+		}
+		if(path.size()==2&&"users".equals(path.get(0))) {
+			if("@me".equals(path.get(1))) {
+				return respond(request, 200, user);
+			}
+			DataObject other=discord.getUserById(parseId(path.get(1)));
+			return other==null?error(request, 404, 10013, "Unknown User"):respond(request, 200, other);
+		}
+		if(path.size()>=3&&"channels".equals(path.get(0))) {
+			long channelId=parseId(path.get(1));
+			if(!discord.hasChannel(channelId)) {
+				return error(request, 404, 10003, "Unknown Channel");
+			}
+			if("typing".equals(path.get(2))) {
+				return respond(request, 204, null);
+			}
+			if("messages".equals(path.get(2))) {
+				return handleMessages(request, method, path, channelId, user.getUnsignedLong("id"));
+			}
+		}
+		return error(request, 404, 0, "404: Not Found (not supported in offline mode)");
+	}
+	/**
+	 * gets the user a request is authorized as
+	 * @param token the value of the <code>Authorization</code> header
+	 * @return the user as JSON or <code>null</code> if the token does not belong to the configured builder
+	 */
+	private synchronized DataObject authorize(String token) {
+		if(token==null) {
+			return null;
+		}
+		if(this.token==null) {
+			this.token=token;
+			return discord.register(token);
+		}
+		return this.token.equals(token)?discord.getUser(token):null;
+	}
+	private Response handleMessages(Request request,String method,List<String> path,long channelId,long userId) throws IOException {
+		if(path.size()==3) {
+			if("GET".equals(method)) {
+				HttpUrl url=request.url();
+				int limit=Math.min(MAX_MESSAGES_PER_REQUEST, parseInt(url.queryParameter("limit"), 50));
+				return respond(request, 200, discord.getMessages(channelId, parseId(url.queryParameter("before")), parseId(url.queryParameter("after")), limit));
+			}
+			if("POST".equals(method)) {
+				DataObject body=readBody(request);
+				if(body==null) {
+					return error(request, 400, 50006, "Cannot send an empty message (attachments are not supported in offline mode)");
+				}
+				return respond(request, 200, discord.createMessage(channelId, userId, body.getString("content", ""), getEmbed(body)));
+			}
+		}else if(path.size()==4&&"bulk-delete".equals(path.get(3))&&"POST".equals(method)) {
+			DataObject body=readBody(request);
+			if(body==null) {
+				return error(request, 400, 50016, "Invalid bulk delete request");
+			}
+			DataArray ids=body.getArray("messages");
+			List<Long> messageIds=new ArrayList<>(ids.length());
+			for (int i = 0; i < ids.length(); i++) {
+				messageIds.add(parseId(ids.getString(i)));
+			}
+			discord.deleteMessages(channelId, messageIds);
+			return respond(request, 204, null);
+		}else if(path.size()==4) {
+			long messageId=parseId(path.get(3));
+			switch(method) {
+			case "GET":{
+				DataObject msg=discord.getMessage(channelId, messageId);
+				return msg==null?unknownMessage(request):respond(request, 200, msg);
+			}
+			case "PATCH":{
+				DataObject body=readBody(request);
+				DataObject msg=body==null?null:discord.editMessage(channelId, messageId, body.getString("content", null), getEmbed(body));
+				return msg==null?unknownMessage(request):respond(request, 200, msg);
+			}
+			case "DELETE":
+				return discord.deleteMessage(channelId, messageId)?respond(request, 204, null):unknownMessage(request);
+			default:
+				break;
+			}
+		}else if(path.size()>=5&&"reactions".equals(path.get(4))) {
+			//reactions are accepted but not stored
+			return respond(request, 204, null);
+		}
+		return error(request, 405, 0, "405: Method Not Allowed");
+	}
+	private static DataObject getEmbed(DataObject body) {
+		if(!body.hasKey("embed")||body.isNull("embed")) {
+			return null;
+		}
+		return body.getObject("embed").put("type", "rich");
+	}
+	private static DataObject readBody(Request request) throws IOException {
+		RequestBody body=request.body();
+		if(body==null||(body.contentType()!=null&&"multipart".equals(body.contentType().type()))) {
+			return null;
+		}
+		Buffer buffer=new Buffer();
+		body.writeTo(buffer);
+		return DataObject.fromJson(buffer.readUtf8());
+	}
+	private static long parseId(String id) {
+		if(id==null) {
+			return 0;
+		}
+		try {
+			return Long.parseUnsignedLong(id);
+		}catch(NumberFormatException e) {
+			return 0;
+		}
+	}
+	private static int parseInt(String num,int defaultValue) {
+		if(num==null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(num);
+		}catch(NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+	private static Response unknownMessage(Request request) {
+		return error(request, 404, 10008, "Unknown Message");
+	}
+	private static Response error(Request request,int status,int code,String message) {
+		return respond(request, status, DataObject.empty().put("code", code).put("message", message));
+	}
+	private static Response respond(Request request,int status,Object body) {
+		return new Response.Builder()
+				.request(request)
+				.protocol(Protocol.HTTP_1_1)
+				.code(status)
+				.message(status<300?"OK":"Error")
+				.body(body==null?ResponseBody.create(null, new byte[0]):ResponseBody.create(JSON, body.toString()))
+				.build();
+	}
+}
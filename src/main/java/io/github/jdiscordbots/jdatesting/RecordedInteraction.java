@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: RecordedInteraction.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+/**
+ * a command and the response of the bot that have been recorded during a test run
+ * @see InteractionReplay
+ */
+public final class RecordedInteraction {
+
+	private final DataObject data;
+
+	RecordedInteraction(DataObject data) {
+		this.data=data;
+	}
+	/**
+	 * gets the command that has been sent
+	 * @return the content of the command after the prefix
+	 */
+	public String getCommand() {
+		return data.getString("command");
+	}
+	/**
+	 * gets the Snowflake ID of the channel where the command has been sent
+	 * @return the ID of the channel
+	 */
+	public long getChannelId() {
+		return data.getUnsignedLong("channel");
+	}
+	/**
+	 * gets the time when the response has been received
+	 * @return the time of the response
+	 */
+	public Instant getTimestamp() {
+		return Instant.ofEpochMilli(data.getLong("timestamp"));
+	}
+	/**
+	 * gets the time the bot needed for responding
+	 * @return the latency of the response
+	 */
+	public Duration getLatency() {
+		return Duration.ofNanos(data.getLong("latency"));
+	}
+	/**
+	 * gets the Snowflake ID of the author of the response
+	 * @return the ID of the author
+	 */
+	public long getAuthorId() {
+		return data.getUnsignedLong("author");
+	}
+	/**
+	 * gets the raw content of the response
+	 * @return the content of the response
+	 */
+	public String getContent() {
+		return data.getString("content", "");
+	}
+	/**
+	 * gets the number of embeds of the response
+	 * @return the number of embeds
+	 */
+	public int getEmbedCount() {
+		DataArray embeds=data.getArray("embeds");
+		return embeds==null?0:embeds.length();
+	}
+	/**
+	 * gets the String representation of the response containing its content and its embeds including all fields
+	 * @return the String representation
+	 * @see MessageLogEvent#render()
+	 */
+	public String getRendered() {
+		return data.getString("rendered", "");
+	}
+	@Override
+	public String toString() {
+		return "RecordedInteraction[command="+getCommand()+", response="+getRendered()+"]";
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: ReplayReport.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * results of replaying a recording using an {@link InteractionReplay}
+ */
+public final class ReplayReport {
+
+	private final int replayed;
+	private final List<String> mismatches;
+
+	ReplayReport(int replayed,List<String> mismatches) {
+		this.replayed=replayed;
+		this.mismatches=Collections.unmodifiableList(mismatches);
+	}
+	/**
+	 * gets the number of commands that have been replayed
+	 * @return the number of replayed commands
+	 */
+	public int getReplayed() {
+		return replayed;
+	}
+	/**
+	 * gets descriptions of all responses that differ from the recorded responses
+	 * @return the descriptions of the mismatches in the order of the recording
+	 */
+	public List<String> getMismatches() {
+		return mismatches;
+	}
+	/**
+	 * checks if the bot responded to all commands in the same way as in the recording
+	 * @return <code>true</code> if there were no mismatches, else <code>false</code>
+	 */
+	public boolean isSuccessful() {
+		return mismatches.isEmpty();
+	}
+	@Override
+	public String toString() {
+		return "ReplayReport[replayed="+replayed+", mismatches="+mismatches.size()+"]";
+	}
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: RestScheduler.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.internal.requests.CallbackContext;
+
+/**
+ * coordinates all requests to Discord that are executed by the testing system<br>
+ * Requests are executed in the order of their {@link Priority} and only a limited number of requests is executed at the same time,
+ * so polling for messages cannot delay sending commands.
+ * Cleanup requests are deferred until no other requests are waiting or being executed.<br>
+ * The interval for polling messages adapts to the observed request durations (which grow when requests are rate-limited) and to the response latencies of the bot.<br>
+ * When running against {@link OfflineDiscord}, the number of requests executed at the same time is not limited unless <i>rest-concurrency</i> is set.
+ * @see TestUtils#getRestScheduler()
+ */
+public final class RestScheduler {
+
+	/**
+	 * the priority of a request, requests with a lower ordinal are executed first
+	 */
+	public enum Priority{
+		/**
+		 * sending messages
+		 */
+		SEND,
+		/**
+		 * retrieving messages while awaiting a message
+		 */
+		AWAIT,
+		/**
+		 * deleting messages that are not needed any more
+		 */
+		CLEANUP
+	}
+
+	private static final long MIN_POLL_INTERVAL=TimeUnit.MILLISECONDS.toNanos(50);
+	private static final long DEFAULT_POLL_INTERVAL=TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long MAX_POLL_INTERVAL=TimeUnit.SECONDS.toNanos(2);
+	private static final long MAX_CLEANUP_DEFERRAL=TimeUnit.SECONDS.toNanos(10);
+
+	private final int maxRequests;
+	private final ScheduledExecutorService timer;
+	private final Map<Priority, Queue<Request<?>>> queues=new EnumMap<>(Priority.class);
+	private final Map<Priority, LatencyHistogram> waitTimes=new EnumMap<>(Priority.class);
+	private int running=0;
+	private int runningCleanups=0;
+	private boolean drainScheduled=false;
+	private volatile long awaitRequestNanos=0;
+	private volatile long responseLatencyNanos=0;
+
+	/**
+	 * creates a scheduler
+	 * @param maxRequests the maximum number of requests that are executed at the same time
+	 * @param timer the executor used for executing deferred cleanup requests
+	 */
+	RestScheduler(int maxRequests,ScheduledExecutorService timer) {
+		if(maxRequests<1) {
+			throw new IllegalArgumentException("at least one request needs to be executed at the same time");
+		}
+		this.maxRequests=maxRequests;
+		this.timer=timer;
+		for (Priority priority : Priority.values()) {
+			queues.put(priority, new ArrayDeque<>());
+			waitTimes.put(priority, new LatencyHistogram());
+		}
+	}
+	/**
+	 * executes a request as soon as all requests with a higher priority have been started
+	 * @param <T> the result type of the request
+	 * @param priority the {@link Priority} of the request
+	 * @param action the request
+	 * @return a {@link CompletableFuture} that is completed with the result of the request
+	 */
+	<T> CompletableFuture<T> submit(Priority priority,RestAction<T> action) {
+		Request<T> request=new Request<>(priority, action);
+		List<Request<?>> started;
+		synchronized(this) {
+			queues.get(priority).offer(request);
+			started=drain();
+		}
+		start(started);
+		return request.future;
+	}
+	/**
+	 * executes a request as soon as all requests with a higher priority have been started and waits until it is done<br>
+	 * Like {@link RestAction#complete()}, this must not be called from callbacks of requests because the thread executing the callbacks of the request might be blocked.
+	 * @param <T> the result type of the request
+	 * @param priority the {@link Priority} of the request
+	 * @param action the request
+	 * @return the result of the request
+	 * @throws IllegalStateException if this is called from the callback of a request
+	 */
+	<T> T complete(Priority priority,RestAction<T> action) {
+		if(CallbackContext.isCallbackContext()) {
+			throw new IllegalStateException("Preventing waiting for a request in a callback thread, use the asynchronous methods instead");
+		}
+		try {
+			return submit(priority, action).join();
+		}catch(CompletionException e) {
+			Throwable cause=e.getCause();
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw e;
+		}
+	}
+	/**
+	 * takes as many queued requests as allowed to be started<br>
+	 * needs to be called while holding the lock of the scheduler, the returned requests need to be started using {@link #start(List)} after releasing it
+	 * @return the requests to start
+	 */
+	private List<Request<?>> drain() {
+		List<Request<?>> started=new ArrayList<>();
+		while(running<maxRequests) {
+			Request<?> request=queues.get(Priority.SEND).poll();
+			if(request==null) {
+				request=queues.get(Priority.AWAIT).poll();
+			}
+			if(request==null) {
+				request=pollCleanup();
+			}
+			if(request==null) {
+				break;
+			}
+			running++;
+			if(request.priority==Priority.CLEANUP) {
+				runningCleanups++;
+			}
+			started.add(request);
+		}
+		return started;
+	}
+	/**
+	 * starts requests taken by {@link #drain()}<br>
+	 * This must not be called while holding the lock of the scheduler as executing a request may call into JDA.
+	 * @param requests the requests to start
+	 */
+	private static void start(List<Request<?>> requests) {
+		for (Request<?> request : requests) {
+			request.start();
+		}
+	}
+	/**
+	 * gets the next cleanup request if no other requests are executed or the request has been deferred for too long
+	 * @return the cleanup request or <code>null</code> if cleanup should be deferred
+	 */
+	private Request<?> pollCleanup() {
+		Request<?> request=queues.get(Priority.CLEANUP).peek();
+		if(request==null) {
+			return null;
+		}
+		long deferred=System.nanoTime()-request.queuedNanos;
+		if(running==runningCleanups||deferred>=MAX_CLEANUP_DEFERRAL) {
+			return queues.get(Priority.CLEANUP).poll();
+		}
+		if(!drainScheduled) {
+			drainScheduled=true;
+			timer.schedule(()->{
+				List<Request<?>> started;
+				synchronized(this) {
+					drainScheduled=false;
+					started=drain();
+				}
+				start(started);
+			}, MAX_CLEANUP_DEFERRAL-deferred, TimeUnit.NANOSECONDS);
+		}
+		return null;
+	}
+	private void onDone(Request<?> request) {
+		List<Request<?>> started;
+		synchronized(this) {
+			running--;
+			if(request.priority==Priority.CLEANUP) {
+				runningCleanups--;
+			}
+			started=drain();
+		}
+		start(started);
+	}
+	/**
+	 * records a response latency of the bot in order to adapt the poll interval
+	 * @param nanos the latency in nanoseconds
+	 */
+	void recordResponseLatency(long nanos) {
+		responseLatencyNanos=average(responseLatencyNanos, nanos);
+	}
+	private static long average(long average,long value) {
+		return average==0?value:(average*4+value)/5;
+	}
+	/**
+	 * gets the interval between two polls when awaiting a message<br>
+	 * Messages are not polled more often than a request takes or than a quarter of the usual response latency of the bot.
+	 * The interval grows if more polls are waiting than can be executed at the same time.
+	 * @return the poll interval
+	 */
+	public Duration getPollInterval() {
+		long interval=Math.max(awaitRequestNanos, responseLatencyNanos/4);
+		if(interval==0) {
+			interval=DEFAULT_POLL_INTERVAL;
+		}
+		int waiting=getQueueDepth(Priority.AWAIT);
+		if(waiting>maxRequests) {
+			interval=interval*waiting/maxRequests;
+		}
+		return Duration.ofNanos(Math.max(MIN_POLL_INTERVAL, Math.min(MAX_POLL_INTERVAL, interval)));
+	}
+	/**
+	 * gets the number of requests of a {@link Priority} that are waiting to be executed
+	 * @param priority the {@link Priority}
+	 * @return the number of waiting requests
+	 */
+	public synchronized int getQueueDepth(Priority priority) {
+		return queues.get(priority).size();
+	}
+	/**
+	 * gets the number of requests that are currently being executed
+	 * @return the number of running requests
+	 */
+	public synchronized int getRunning() {
+		return running;
+	}
+	/**
+	 * gets the times requests of a {@link Priority} had to wait before being executed
+	 * @param priority the {@link Priority}
+	 * @return the wait times
+	 */
+	public LatencyHistogram getWaitTimes(Priority priority) {
+		return waitTimes.get(priority);
+	}
+	@Override
+	public String toString() {
+		StringBuilder sb=new StringBuilder("RestScheduler[running=").append(getRunning());
+		for (Priority priority : Priority.values()) {
+			sb.append(", ").append(priority).append("=[queued=").append(getQueueDepth(priority)).append(", wait=").append(getWaitTimes(priority)).append(']');
+		}
+		return sb.append(", pollInterval=").append(getPollInterval()).append(']').toString();
+	}
+	/**
+	 * a request that is waiting to be executed
+	 * @param <T> the result type of the request
+	 */
+	private final class Request<T>{
+		private final Priority priority;
+		private final RestAction<T> action;
+		private final CompletableFuture<T> future=new CompletableFuture<>();
+		private final long queuedNanos=System.nanoTime();
+
+		private Request(Priority priority,RestAction<T> action) {
+			this.priority=priority;
+			this.action=action;
+		}
+		private void start() {
+			long startNanos=System.nanoTime();
+			waitTimes.get(priority).record(startNanos-queuedNanos);
+			try {
+				action.queue(result->{
+					done(startNanos);
+					future.complete(result);
+				}, e->{
+					done(startNanos);
+					future.completeExceptionally(e);
+				});
+			}catch(RuntimeException e) {
+				done(startNanos);
+				future.completeExceptionally(e);
+			}
+		}
+		private void done(long startNanos) {
+			if(priority==Priority.AWAIT) {
+				awaitRequestNanos=average(awaitRequestNanos, System.nanoTime()-startNanos);
+			}
+			onDone(this);
+		}
+	}
+}
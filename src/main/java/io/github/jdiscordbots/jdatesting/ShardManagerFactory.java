@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: ShardManagerFactory.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import net.dv8tion.jda.api.sharding.ShardManager;
+
+/**
+ * creates the {@link ShardManager} of a sharded bot to test<br>
+ * If the <code>jda-tests.properties</code> do not contain a <i>jda-factory-class</i> and no {@link JDAFactory} service is available,
+ * the factory is loaded using {@link java.util.ServiceLoader}.
+ * In order to do this, the fully qualified name of the implementation needs to be written to a file named
+ * <code>META-INF/services/io.github.jdiscordbots.jdatesting.ShardManagerFactory</code> in the classpath.
+ * @see TestUtils#getShardManager()
+ */
+@FunctionalInterface
+public interface ShardManagerFactory {
+	/**
+	 * creates the {@link ShardManager}<br>
+	 * This is called once in a background thread as soon as {@link TestUtils} is loaded.
+	 * The testing system waits until all shards are ready.
+	 * @return the {@link ShardManager}
+	 * @throws Exception if the instance cannot be created
+	 */
+	ShardManager createShardManager() throws Exception;
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: SoakReport.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * results of a soak test executed by a {@link SoakRunner}<br>
+ * The latencies of the windows are the response latencies of the bot as recorded in the {@link TestUtils#getLatencyStatistics() latency statistics}, drift is detected using them.
+ * The durations of whole scenario runs including sending commands, awaiting the responses and checking them are reported as a secondary series.
+ */
+public final class SoakReport {
+
+	private static final double NANOS_PER_MILLI=1_000_000.0;
+	private static final double NANOS_PER_HOUR=3_600_000_000_000.0;
+
+	private final Duration duration;
+	private final List<SoakWindow> windows;
+	private final Map<String, Long> failures;
+
+	SoakReport(Duration duration,List<SoakWindow> windows,Map<String, Long> failures) {
+		this.duration=duration;
+		this.windows=Collections.unmodifiableList(windows);
+		this.failures=Collections.unmodifiableMap(failures);
+	}
+	/**
+	 * gets the time the soak test was running
+	 * @return the duration of the soak test
+	 */
+	public Duration getDuration() {
+		return duration;
+	}
+	/**
+	 * gets the summaries of all time windows in chronological order
+	 * @return an unmodifiable {@link List} of the windows
+	 */
+	public List<SoakWindow> getWindows() {
+		return windows;
+	}
+	/**
+	 * gets the number of failed runs per scenario
+	 * @return an unmodifiable {@link Map} from the names of the scenarios that failed at least once to the number of failures
+	 */
+	public Map<String, Long> getFailures() {
+		return failures;
+	}
+	/**
+	 * gets the number of scenarios that have been run
+	 * @return the number of runs
+	 */
+	public long getRuns() {
+		long runs=0;
+		for (SoakWindow window : windows) {
+			runs+=window.getRuns();
+		}
+		return runs;
+	}
+	/**
+	 * checks if the latencies of the last window are significantly higher than the latencies of the baseline window
+	 * @return <code>true</code> if the latencies drifted, else <code>false</code>
+	 */
+	public boolean isDrifting() {
+		return !windows.isEmpty()&&windows.get(windows.size()-1).isDrifting();
+	}
+	/**
+	 * estimates how fast the used heap of the JVM grows using a linear regression over all windows
+	 * @return the growth of the heap in bytes per hour, a steady positive value may indicate a leak
+	 */
+	public double getHeapGrowthPerHour() {
+		int n=windows.size();
+		if(n<2) {
+			return 0;
+		}
+		double meanX=0;
+		double meanY=0;
+		for (SoakWindow window : windows) {
+			meanX+=window.getStart().toNanos();
+			meanY+=window.getHeapUsed();
+		}
+		meanX/=n;
+		meanY/=n;
+		double covariance=0;
+		double variance=0;
+		for (SoakWindow window : windows) {
+			double dx=window.getStart().toNanos()-meanX;
+			covariance+=dx*(window.getHeapUsed()-meanY);
+			variance+=dx*dx;
+		}
+		return variance==0?0:covariance/variance*NANOS_PER_HOUR;
+	}
+	/**
+	 * creates a CSV representation of all windows<br>
+	 * All durations are specified in milliseconds.
+	 * @return the windows as CSV including a header line
+	 */
+	public String toCsv() {
+		StringBuilder sb=new StringBuilder("start_ms,runs,failures,responses,mean_ms,p50_ms,p95_ms,p99_ms,max_ms,scenario_mean_ms,scenario_p50_ms,scenario_p95_ms,scenario_p99_ms,scenario_max_ms,heap_bytes,p_value,drifting\n");
+		for (SoakWindow window : windows) {
+			sb.append(toMillis(window.getStart().toNanos()))
+				.append(',').append(window.getRuns())
+				.append(',').append(window.getFailures())
+				.append(',').append(window.getResponses())
+				.append(',').append(toMillis(window.getMean().toNanos()))
+				.append(',').append(toMillis(window.getP50().toNanos()))
+				.append(',').append(toMillis(window.getP95().toNanos()))
+				.append(',').append(toMillis(window.getP99().toNanos()))
+				.append(',').append(toMillis(window.getMax().toNanos()))
+				.append(',').append(toMillis(window.getScenarioMean().toNanos()))
+				.append(',').append(toMillis(window.getScenarioP50().toNanos()))
+				.append(',').append(toMillis(window.getScenarioP95().toNanos()))
+				.append(',').append(toMillis(window.getScenarioP99().toNanos()))
+				.append(',').append(toMillis(window.getScenarioMax().toNanos()))
+				.append(',').append(window.getHeapUsed())
+				.append(',').append(window.getPValue())
+				.append(',').append(window.isDrifting())
+				.append('\n');
+		}
+		return sb.toString();
+	}
+	/**
+	 * writes the windows as CSV to a file
+	 * @param file the file
+	 * @throws IOException if the file cannot be written
+	 * @see SoakReport#toCsv()
+	 */
+	public void export(Path file) throws IOException {
+		Files.write(file, toCsv().getBytes(StandardCharsets.UTF_8));
+	}
+	private static double toMillis(long nanos) {
+		return nanos/NANOS_PER_MILLI;
+	}
+	@Override
+	public String toString() {
+		return "SoakReport[duration="+duration+", windows="+windows.size()+", runs="+getRuns()+", failures="+failures
+				+", drifting="+isDrifting()+", heapGrowthPerHour="+String.format("%.0f", getHeapGrowthPerHour())+"]";
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: SoakRunner.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * runs scenarios repeatedly for a long time in order to find problems that only occur after hours of traffic<br>
+ * A scenario is a piece of code using {@link TestUtils} that sends commands and awaits the responses, it fails by throwing an exception or an {@link AssertionError}.
+ * The scenarios are run one after another in the order they have been added.<br>
+ * The response latencies of the bot (as recorded in the {@link TestUtils#getLatencyStatistics() latency statistics}) are collected in time windows.
+ * Every window is compared with the baseline window using a Mann-Whitney U test on a bounded random sample,
+ * so growing response times are detected even if the latencies are not normally distributed.
+ * The baseline is the first window with at least 20 responses, windows with fewer responses are not compared.
+ * The durations of successful scenario runs are collected as well, but they include the time needed for checking the responses and are not used for detecting drift.
+ * After every window, all tracked messages that are older than the timeout are deleted and the bookkeeping of the testing system is pruned,
+ * so the memory used by the tester does not grow with the duration of the soak test.
+ */
+public final class SoakRunner {
+
+	//the Mann-Whitney U test is not reliable with fewer samples
+	private static final int MIN_SAMPLES=20;
+
+	private final List<Scenario> scenarios=new ArrayList<>();
+	private Duration duration=Duration.ofHours(1);
+	private Duration window=Duration.ofMinutes(1);
+	private int reservoirSize=1000;
+	private double significance=0.01;
+	private double minimumDrift=0.1;
+
+	/**
+	 * adds a scenario that should be run repeatedly
+	 * @param name the name of the scenario used in the report
+	 * @param scenario the code of the scenario
+	 */
+	public void addScenario(String name,Runnable scenario) {
+		scenarios.add(new Scenario(name, scenario));
+	}
+	/**
+	 * sets the time during which the scenarios are run
+	 * @param duration the duration of the soak test
+	 */
+	public void setDuration(Duration duration) {
+		this.duration=duration;
+	}
+	/**
+	 * sets the length of the time windows latencies are collected in
+	 * @param window the length of a window
+	 */
+	public void setWindow(Duration window) {
+		if(window.isZero()||window.isNegative()) {
+			throw new IllegalArgumentException("window must be positive");
+		}
+		this.window=window;
+	}
+	/**
+	 * sets the maximum number of latencies per window used for detecting drift
+	 * @param reservoirSize the size of the random sample of a window
+	 */
+	public void setReservoirSize(int reservoirSize) {
+		if(reservoirSize<=0) {
+			throw new IllegalArgumentException("reservoir size must be positive");
+		}
+		this.reservoirSize=reservoirSize;
+	}
+	/**
+	 * sets the p-value below which a difference between the latencies of a window and the baseline window is significant
+	 * @param significance the significance level, e.g. <code>0.01</code>
+	 */
+	public void setSignificance(double significance) {
+		this.significance=significance;
+	}
+	/**
+	 * sets the relative growth of the median latency that is needed for a significant difference to count as drift<br>
+	 * With many samples even tiny differences are significant, so this avoids reporting irrelevant drift.
+	 * @param minimumDrift the relative growth, e.g. <code>0.1</code> for 10%
+	 */
+	public void setMinimumDrift(double minimumDrift) {
+		this.minimumDrift=minimumDrift;
+	}
+	/**
+	 * runs the scenarios in the current thread until the duration has passed
+	 * @return the {@link SoakReport} of the soak test
+	 */
+	public SoakReport run() {
+		if(scenarios.isEmpty()) {
+			throw new IllegalStateException("no scenarios have been added");
+		}
+		long startNanos=System.nanoTime();
+		long endNanos=startNanos+duration.toNanos();
+		List<SoakWindow> windows=new ArrayList<>();
+		Map<String, Long> failures=new LinkedHashMap<>();
+		LatencyReservoir baseline=null;
+		AtomicReference<Window> current=new AtomicReference<>(new Window(startNanos));
+		//responses are recorded in the threads receiving them, possibly after the scenario awaiting them is done
+		ObjLongConsumer<String> listener=(command,nanos)->current.get().recordResponse(nanos);
+		LatencyStatistics statistics=TestUtils.getLatencyStatistics();
+		statistics.addListener(listener);
+		try {
+			int next=0;
+			while(System.nanoTime()-endNanos<0&&!Thread.currentThread().isInterrupted()) {
+				Scenario scenario=scenarios.get(next);
+				next=(next+1)%scenarios.size();
+				Window running=current.get();
+				long scenarioStart=System.nanoTime();
+				try {
+					scenario.code.run();
+					running.recordScenario(System.nanoTime()-scenarioStart);
+				}catch(RuntimeException|AssertionError e) {
+					running.recordFailure();
+					failures.merge(scenario.name, 1L, Long::sum);
+				}
+				long now=System.nanoTime();
+				if(now-running.startNanos>=window.toNanos()||now-endNanos>=0) {
+					current.set(new Window(now));
+					running.stop();
+					if(baseline==null&&running.responseSamples.size()>=MIN_SAMPLES) {
+						baseline=running.responseSamples;
+					}
+					windows.add(running.close(startNanos, now, baseline));
+				}
+			}
+		}finally {
+			statistics.removeListener(listener);
+		}
+		return new SoakReport(Duration.ofNanos(System.nanoTime()-startNanos), windows, failures);
+	}
+
+	private static final class Scenario{
+		private final String name;
+		private final Runnable code;
+
+		private Scenario(String name,Runnable code) {
+			this.name=name;
+			this.code=code;
+		}
+	}
+
+	/**
+	 * the window latencies are currently collected in
+	 */
+	private final class Window{
+		private final long startNanos;
+		private final long startMillis=System.currentTimeMillis();
+		private final LatencyHistogram responses=new LatencyHistogram();
+		private final LatencyReservoir responseSamples=new LatencyReservoir(reservoirSize);
+		private final LatencyHistogram scenarioDurations=new LatencyHistogram();
+		private long runs=0;
+		private long failures=0;
+		private boolean stopped=false;
+
+		private Window(long startNanos) {
+			this.startNanos=startNanos;
+		}
+		/**
+		 * records a response latency of the bot unless the window has already been stopped
+		 * @param nanos the latency in nanoseconds
+		 */
+		private synchronized void recordResponse(long nanos) {
+			if(!stopped) {
+				responses.record(nanos);
+				responseSamples.record(nanos);
+			}
+		}
+		private void recordScenario(long nanos) {
+			runs++;
+			scenarioDurations.record(nanos);
+		}
+		private void recordFailure() {
+			failures++;
+		}
+		/**
+		 * stops recording response latencies so the sample does not change any more when it is compared
+		 */
+		private synchronized void stop() {
+			stopped=true;
+		}
+		/**
+		 * finishes the window, compares it with the baseline window and cleans up all tracked messages that are older than the timeout
+		 * @param soakStartNanos the time the soak test started
+		 * @param endNanos the time the window ended
+		 * @param baseline the sample of the baseline window or <code>null</code> if no window had enough responses yet
+		 * @return the summary of the window
+		 */
+		private SoakWindow close(long soakStartNanos,long endNanos,LatencyReservoir baseline) {
+			double pValue=1;
+			boolean drifting=false;
+			if(baseline!=null&&baseline!=responseSamples&&responseSamples.size()>=MIN_SAMPLES) {
+				pValue=baseline.compare(responseSamples);
+				drifting=pValue<significance&&responseSamples.getMedian()>baseline.getMedian()*(1+minimumDrift);
+			}
+			MessageTracker tracker=TestUtils.getMessageTracker();
+			//messages sent within the timeout may still be awaited, e.g. by tests in leased channels
+			long timeoutMillis=TestUtils.getTimeout().toMillis();
+			tracker.flush(System.currentTimeMillis()-timeoutMillis);
+			//replies to commands of this window may still arrive until the timeout expires
+			tracker.prune(startMillis-timeoutMillis);
+			Runtime runtime=Runtime.getRuntime();
+			return new SoakWindow(Duration.ofNanos(startNanos-soakStartNanos), Duration.ofNanos(endNanos-startNanos), runs+failures, failures,
+					responses, scenarioDurations, runtime.totalMemory()-runtime.freeMemory(), pValue, drifting);
+		}
+	}
+}
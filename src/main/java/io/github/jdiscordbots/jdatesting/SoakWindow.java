@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: SoakWindow.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.time.Duration;
+
+/**
+ * summary of one time window of a soak test<br>
+ * The latencies are the response latencies of the bot, the durations of whole scenario runs are summarized separately, see {@link SoakReport}.
+ * @see SoakReport#getWindows()
+ */
+public final class SoakWindow {
+
+	private final Duration start;
+	private final Duration duration;
+	private final long runs;
+	private final long failures;
+	private final long responses;
+	private final long mean;
+	private final long p50;
+	private final long p95;
+	private final long p99;
+	private final long max;
+	private final long scenarioMean;
+	private final long scenarioP50;
+	private final long scenarioP95;
+	private final long scenarioP99;
+	private final long scenarioMax;
+	private final long heapUsed;
+	private final double pValue;
+	private final boolean drifting;
+
+	SoakWindow(Duration start,Duration duration,long runs,long failures,LatencyHistogram latencies,LatencyHistogram scenarioDurations,long heapUsed,double pValue,boolean drifting) {
+		this.start=start;
+		this.duration=duration;
+		this.runs=runs;
+		this.failures=failures;
+		//only the summaries are kept so long soak tests do not keep histograms per window
+		this.responses=latencies.getCount();
+		this.mean=latencies.getMeanNanos();
+		this.p50=latencies.getPercentileNanos(50);
+		this.p95=latencies.getPercentileNanos(95);
+		this.p99=latencies.getPercentileNanos(99);
+		this.max=latencies.getMaxNanos();
+		this.scenarioMean=scenarioDurations.getMeanNanos();
+		this.scenarioP50=scenarioDurations.getPercentileNanos(50);
+		this.scenarioP95=scenarioDurations.getPercentileNanos(95);
+		this.scenarioP99=scenarioDurations.getPercentileNanos(99);
+		this.scenarioMax=scenarioDurations.getMaxNanos();
+		this.heapUsed=heapUsed;
+		this.pValue=pValue;
+		this.drifting=drifting;
+	}
+	/**
+	 * gets the time from the start of the soak test until the window started
+	 * @return the start of the window
+	 */
+	public Duration getStart() {
+		return start;
+	}
+	/**
+	 * gets the length of the window
+	 * @return the duration of the window
+	 */
+	public Duration getDuration() {
+		return duration;
+	}
+	/**
+	 * gets the number of scenarios that have been run in the window
+	 * @return the number of runs
+	 */
+	public long getRuns() {
+		return runs;
+	}
+	/**
+	 * gets the number of scenarios that failed in the window
+	 * @return the number of failures
+	 */
+	public long getFailures() {
+		return failures;
+	}
+	/**
+	 * gets the number of response latencies of the bot that have been recorded in the window
+	 * @return the number of responses
+	 */
+	public long getResponses() {
+		return responses;
+	}
+	/**
+	 * gets the arithmetic mean of the response latencies of the bot in the window
+	 * @return the mean latency or {@link Duration#ZERO} if no response has been recorded
+	 */
+	public Duration getMean() {
+		return Duration.ofNanos(mean);
+	}
+	/**
+	 * gets the median of the response latencies of the bot in the window
+	 * @return the 50th percentile
+	 */
+	public Duration getP50() {
+		return Duration.ofNanos(p50);
+	}
+	/**
+	 * gets the 95th percentile of the response latencies of the bot in the window
+	 * @return the 95th percentile
+	 */
+	public Duration getP95() {
+		return Duration.ofNanos(p95);
+	}
+	/**
+	 * gets the 99th percentile of the response latencies of the bot in the window
+	 * @return the 99th percentile
+	 */
+	public Duration getP99() {
+		return Duration.ofNanos(p99);
+	}
+	/**
+	 * gets the highest response latency of the bot in the window
+	 * @return the maximum latency
+	 */
+	public Duration getMax() {
+		return Duration.ofNanos(max);
+	}
+	/**
+	 * gets the arithmetic mean of the durations of all scenarios that have been run successfully in the window
+	 * @return the mean duration or {@link Duration#ZERO} if no scenario has been run successfully
+	 */
+	public Duration getScenarioMean() {
+		return Duration.ofNanos(scenarioMean);
+	}
+	/**
+	 * gets the median of the durations of all scenarios that have been run successfully in the window
+	 * @return the 50th percentile
+	 */
+	public Duration getScenarioP50() {
+		return Duration.ofNanos(scenarioP50);
+	}
+	/**
+	 * gets the 95th percentile of the durations of all scenarios that have been run successfully in the window
+	 * @return the 95th percentile
+	 */
+	public Duration getScenarioP95() {
+		return Duration.ofNanos(scenarioP95);
+	}
+	/**
+	 * gets the 99th percentile of the durations of all scenarios that have been run successfully in the window
+	 * @return the 99th percentile
+	 */
+	public Duration getScenarioP99() {
+		return Duration.ofNanos(scenarioP99);
+	}
+	/**
+	 * gets the longest duration of all scenarios that have been run successfully in the window
+	 * @return the maximum duration
+	 */
+	public Duration getScenarioMax() {
+		return Duration.ofNanos(scenarioMax);
+	}
+	/**
+	 * gets the heap memory used by the JVM at the end of the window
+	 * @return the used heap in bytes
+	 */
+	public long getHeapUsed() {
+		return heapUsed;
+	}
+	/**
+	 * gets the p-value of the Mann-Whitney U test comparing the latencies of this window with the latencies of the baseline window
+	 * @return the p-value, <code>1</code> for the baseline window, for windows before it and for windows with too few responses
+	 */
+	public double getPValue() {
+		return pValue;
+	}
+	/**
+	 * checks if the latencies of this window are significantly higher than the latencies of the baseline window
+	 * @return <code>true</code> if the latencies drifted, else <code>false</code>
+	 * @see SoakRunner#setSignificance(double)
+	 * @see SoakRunner#setMinimumDrift(double)
+	 */
+	public boolean isDrifting() {
+		return drifting;
+	}
+	@Override
+	public String toString() {
+		return "SoakWindow[start="+start+", runs="+runs+", failures="+failures+", responses="+responses+", p50="+getP50()+", p99="+getP99()+", scenarioP50="+getScenarioP50()+", heapUsed="+heapUsed
+				+", pValue="+String.format("%.4f", pValue)+", drifting="+drifting+"]";
+	}
+}
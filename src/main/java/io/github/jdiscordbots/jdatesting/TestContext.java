@@ -0,0 +1,1102 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: TestContext.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.awaitility.Awaitility;
+import org.awaitility.Durations;
+import org.awaitility.core.ConditionTimeoutException;
+
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import io.github.jdiscordbots.jdatesting.InteractionTrace.Span;
+import io.github.jdiscordbots.jdatesting.MessageTracker.PendingSend;
+import io.github.jdiscordbots.jdatesting.RestScheduler.Priority;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageHistory;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.requests.RestAction;
+
+/**
+ * settings and state of feature tests that are executed in one {@link TextChannel}<br>
+ * Every context has its own timeout, logger and auto-delete queue so tests using different contexts can run concurrently.
+ * The static methods of {@link TestUtils} use the default context.<br>
+ * Methods that wait for requests to Discord must not be called from callbacks of requests (e.g. in a {@link CompletableFuture} returned by an asynchronous method), they throw an {@link IllegalStateException} there.
+ * @see TestUtils#getDefaultContext()
+ */
+public final class TestContext {
+
+	private static final int MAX_MESSAGES_PER_REQUEST=100;
+	private static final long MAX_CLOCK_SKEW_MILLIS=10_000;
+
+	private final TextChannel channel;
+	private volatile Duration timeout=Durations.FIVE_SECONDS;
+	private volatile MessageLogger logger=null;
+	private volatile int numOfMessagesToCheck=100;
+	private volatile int numOfMessagesForAutoDelete=-1;
+	private volatile boolean eventDrivenAwaiting=false;
+	private final Queue<Message> toDelete=new LinkedBlockingQueue<>();
+	private final Map<Long, TLongList> pendingDeletes=new HashMap<>();
+	private final AtomicReference<PendingCommand> lastCommand=new AtomicReference<>();
+	private final Map<Long, PendingCommand> pendingCommands=new ConcurrentHashMap<>();
+
+	/**
+	 * creates a context that uses the testing channel<br>
+	 * The settings are copied from the default context.
+	 * @see TestUtils#getTestingChannel()
+	 * @see TestUtils#getDefaultContext()
+	 */
+	public TestContext() {
+		this(TestUtils.getTestingChannel());
+	}
+	/**
+	 * creates a context that uses a specific {@link TextChannel}<br>
+	 * The settings are copied from the default context.
+	 * @param channel the {@link TextChannel} where commands should be tested
+	 * @see TestUtils#getDefaultContext()
+	 */
+	public TestContext(TextChannel channel) {
+		this(channel,TestUtils.getDefaultContext());
+	}
+	TestContext(TextChannel channel,TestContext template){
+		this.channel=channel;
+		if(template!=null) {
+			this.timeout=template.timeout;
+			this.logger=template.logger;
+			this.numOfMessagesToCheck=template.numOfMessagesToCheck;
+			this.numOfMessagesForAutoDelete=template.numOfMessagesForAutoDelete;
+			this.eventDrivenAwaiting=template.eventDrivenAwaiting;
+		}
+	}
+	/**
+	 * gets the {@link TextChannel} where commands are tested in this context
+	 * @return the {@link TextChannel}
+	 */
+	public TextChannel getChannel() {
+		return channel;
+	}
+	/**
+	 * gets maximum the timeout that is used when waiting for a message
+	 * @return the timeout
+	 * @see TestContext#getMessage(TextChannel, Predicate)
+	 */
+	public Duration getTimeout() {
+		return timeout;
+	}
+	/**
+	 * sets the maximum timeout that is used when waiting for a message
+	 * @param timeout the timeout
+	 * @see TestContext#getMessage(TextChannel, Predicate)
+	 */
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+	void log(Message msg) {
+		log(msg, null);
+	}
+	private void log(Message msg,AwaitState await) {
+		MessageLogger logger=this.logger;
+		if(logger!=null&&logger.isEnabled()&&(await==null||await.markLogged(msg.getIdLong()))) {
+			logger.log(new MessageLogEvent(msg));
+		}
+	}
+	/**
+	 * gets a {@link Message} that fulfills certain criteria has already been sent but was sent during the tests
+	 * @param tc the {@link TextChannel} where the message was sent
+	 * @param tester a function that returns <code>true</code> if a message is the correct message
+	 * @return the {@link Message} Object or null if it hasn't been sent
+	 */
+	public Message getAlreadySentMessage(TextChannel tc,Predicate<Message> tester) {
+		TestUtils.getMessageTracker().watch(tc);
+		refreshHistory(tc, null);
+		return findMessage(tc, TestUtils.getMessageCache().getMessages(tc, TestUtils.getStartId(), numOfMessagesToCheck), tester);
+	}
+	/**
+	 * retrieves all messages of a {@link TextChannel} that have not been retrieved yet and adds them to the {@link MessageCache}<br>
+	 * If no messages have been retrieved from the channel before, the last messages are retrieved.
+	 * @param tc the {@link TextChannel}
+	 * @param parent the span of the await the messages are retrieved for or <code>null</code> if they are not retrieved for an await
+	 */
+	private void refreshHistory(TextChannel tc,Span parent) {
+		MessageCache cache=TestUtils.getMessageCache();
+		Long cursor=cache.getCursor(tc);
+		if(cursor==null) {
+			cache.add(tc, fetch(tc, tc.getHistory().retrievePast(numOfMessagesToCheck), parent));
+			return;
+		}
+		List<Message> retrieved;
+		do {
+			retrieved=fetch(tc, tc.getHistoryAfter(cursor, MAX_MESSAGES_PER_REQUEST), parent).getRetrievedHistory();
+			cache.add(tc, retrieved);
+			cursor=cache.getCursor(tc);
+		}while(retrieved.size()>=MAX_MESSAGES_PER_REQUEST);
+	}
+	/**
+	 * asynchronously retrieves all messages of a {@link TextChannel} that have not been retrieved yet and adds them to the {@link MessageCache}<br>
+	 * At most {@link TestContext#MAX_MESSAGES_PER_REQUEST} new messages are retrieved.
+	 * @param tc the {@link TextChannel}
+	 * @return a {@link CompletableFuture} that is completed as soon as the messages have been added
+	 * @see TestContext#refreshHistory(TextChannel, Span)
+	 */
+	private CompletableFuture<Void> refreshHistoryAsync(TextChannel tc) {
+		MessageCache cache=TestUtils.getMessageCache();
+		Long cursor=cache.getCursor(tc);
+		RestScheduler scheduler=TestUtils.getRestScheduler();
+		CompletableFuture<List<Message>> retrieved;
+		if(cursor==null) {
+			retrieved=scheduler.submit(Priority.AWAIT, tc.getHistory().retrievePast(numOfMessagesToCheck));
+		}else {
+			retrieved=scheduler.submit(Priority.AWAIT, tc.getHistoryAfter(cursor, MAX_MESSAGES_PER_REQUEST)).thenApply(MessageHistory::getRetrievedHistory);
+		}
+		return retrieved.thenAccept(messages->cache.add(tc, messages));
+	}
+	/**
+	 * retrieves messages and waits until they have been retrieved
+	 * @param <T> the type of the retrieved messages
+	 * @param tc the {@link TextChannel} the messages are retrieved from
+	 * @param action the request retrieving the messages
+	 * @param parent the span of the await the messages are retrieved for or <code>null</code> if they are not retrieved for an await
+	 * @return the retrieved messages
+	 */
+	private <T> T fetch(TextChannel tc,RestAction<T> action,Span parent) {
+		InteractionTrace trace=TestUtils.getTrace();
+		Span span=trace.start("fetch", tc, getCurrentCommand(), trace.getTestName(), parent);
+		try {
+			return TestUtils.getRestScheduler().complete(Priority.AWAIT, action);
+		}finally {
+			span.end();
+		}
+	}
+	/**
+	 * gets the command that has been sent last and whose response is awaited
+	 * @return the content of the command or <code>null</code> if no command is pending
+	 */
+	private String getCurrentCommand() {
+		PendingCommand command=lastCommand.get();
+		return command==null?null:command.message;
+	}
+	Message findMessage(TextChannel tc,List<Message> history,Predicate<Message> tester) {
+		return findMessage(tc, history, tester, null);
+	}
+	private Message findMessage(TextChannel tc,List<Message> history,Predicate<Message> tester,AwaitState await) {
+		InteractionTrace trace=TestUtils.getTrace();
+		Span span=await==null?trace.start("match", tc, null):trace.start("match", tc, null, await.testName, await.span);
+		try {
+			//the history is sorted newest first
+			int count=0;
+			while(count<history.size()&&TestUtils.isMessageSentDuringTest(history.get(count))) {
+				count++;
+			}
+			boolean oldestFirst=await!=null&&await.oldestFirst;
+			for (int i = 0; i < count; i++) {
+				Message msg=history.get(oldestFirst?count-1-i:i);
+				log(msg, await);
+				if (tester.test(msg)) {
+					return msg;
+				}
+			}
+			return null;
+		}finally {
+			span.end();
+		}
+	}
+	/**
+	 * gets a {@link Message} that fulfills certain criteria and has not been checked by an await yet<br>
+	 * Only messages that have not been retrieved by any await are retrieved, all other messages are taken from the {@link MessageCache}.
+	 * If the await has not checked any messages yet, the last messages are checked like in {@link TestContext#getAlreadySentMessage(TextChannel, Predicate)}.
+	 * Afterwards, the cursor of the await is moved to the newest checked message so only newer messages are checked the next time.
+	 * @param tc the {@link TextChannel} where the message was sent
+	 * @param tester a function that returns <code>true</code> if a message is the correct message
+	 * @param await the state of the await containing the Snowflake ID of the newest message that has already been checked
+	 * @return the {@link Message} Object or null if it hasn't been sent
+	 */
+	private Message getNewlySentMessage(TextChannel tc,Predicate<Message> tester,AwaitState await) {
+		refreshHistory(tc, await.span);
+		return findCachedMessage(tc, tester, await);
+	}
+	/**
+	 * gets a cached {@link Message} that fulfills certain criteria and has not been checked by an await yet
+	 * @param tc the {@link TextChannel} where the message was sent
+	 * @param tester a function that returns <code>true</code> if a message is the correct message
+	 * @param await the state of the await containing the Snowflake ID of the newest message that has already been checked
+	 * @return the {@link Message} Object or null if it hasn't been sent
+	 */
+	private Message findCachedMessage(TextChannel tc,Predicate<Message> tester,AwaitState await) {
+		List<Message> history;
+		if(await.cursor==null) {
+			history=TestUtils.getMessageCache().getMessages(tc, TestUtils.getStartId(), numOfMessagesToCheck);
+		}else {
+			history=TestUtils.getMessageCache().getMessages(tc, await.cursor, Integer.MAX_VALUE);
+		}
+		if(!history.isEmpty()) {
+			await.cursor=history.get(0).getIdLong();
+		}else if(await.cursor==null) {
+			await.cursor=TestUtils.getStartId();
+		}
+		return findMessage(tc, history, tester, await);
+	}
+	private static final class Wrapper<T>{
+		T data;
+	}
+	/**
+	 * state of a single await, used for retrieving only new messages and for logging every message only once
+	 */
+	private static final class AwaitState{
+		private final boolean oldestFirst;
+		//the await may be continued in other threads
+		private final String testName=TestUtils.getTrace().getTestName();
+		//the span of the await, spans of fetching and matching are nested in it
+		private volatile Span span;
+		private volatile Long cursor;
+		private final TLongSet logged=new TLongHashSet();
+
+		/**
+		 * creates the state of an await
+		 * @param oldestFirst <code>true</code> if retrieved messages should be tested in the order they have been sent like received messages,
+		 * <code>false</code> if the newest message should be tested first
+		 */
+		private AwaitState(boolean oldestFirst) {
+			this.oldestFirst=oldestFirst;
+		}
+
+		private synchronized boolean markLogged(long messageId) {
+			return logged.add(messageId);
+		}
+	}
+	/**
+	 * a command that has been sent and is waiting for a response in order to record the latency
+	 */
+	private static final class PendingCommand{
+		private final String message;
+		private final long sentNanos=System.nanoTime();
+		private final AtomicBoolean recorded=new AtomicBoolean();
+		private PendingCommand(String message) {
+			this.message=message;
+		}
+		private boolean isCommandMessage(Message msg) {
+			return message.equals(msg.getContentRaw())&&TestUtils.isTesterAccount(msg.getAuthor());
+		}
+		private boolean isExpired(Duration timeout) {
+			return System.nanoTime()-sentNanos>timeout.toNanos();
+		}
+		/**
+		 * records the latency (and the interaction if enabled) of the command unless a response has already been recorded
+		 * @param response the first response to the command
+		 */
+		private void record(Message response) {
+			if(!recorded.compareAndSet(false, true)) {
+				return;
+			}
+			long latency=System.nanoTime()-sentNanos;
+			String command=message.substring(TestUtils.getPrefix().length());
+			TestUtils.getLatencyStatistics().record(LatencyStatistics.getCommandName(command), latency);
+			TestUtils.getRestScheduler().recordResponseLatency(latency);
+			InteractionRecorder recorder=TestUtils.getInteractionRecorder();
+			if(recorder!=null) {
+				recorder.record(command, response, latency);
+			}
+		}
+	}
+	private PendingCommand startCommand(String content) {
+		PendingCommand command=new PendingCommand(TestUtils.getPrefix()+content);
+		lastCommand.set(command);
+		return command;
+	}
+	/**
+	 * keeps a command that has been sent until a reply to it is awaited using {@link TestContext#getReply(Message, Predicate)}<br>
+	 * Commands that have been sent longer than the timeout ago are removed.
+	 * @param command the command
+	 * @param msg the sent {@link Message} of the command
+	 */
+	private void onCommandSent(PendingCommand command,Message msg) {
+		Duration timeout=this.timeout;
+		pendingCommands.values().removeIf(pending->pending.isExpired(timeout));
+		pendingCommands.put(msg.getIdLong(), command);
+	}
+	/**
+	 * records the latency (and the interaction if enabled) of the last command that has been sent if a message is the first response to it<br>
+	 * This is used for awaits that do not know the command they are waiting for.
+	 * @param msg the {@link Message} that matched an await or <code>null</code> if no message matched
+	 */
+	private void onResponse(Message msg) {
+		PendingCommand command=lastCommand.get();
+		if(msg!=null&&command!=null&&!command.isCommandMessage(msg)&&lastCommand.compareAndSet(command, null)) {
+			command.record(msg);
+		}
+	}
+	/**
+	 * records the latency (and the interaction if enabled) of a specific command if a message is the first response to it
+	 * @param command the {@link Message} of the command
+	 * @param reply the reply to the command or <code>null</code> if no reply has been found
+	 */
+	private void onReply(Message command,Message reply) {
+		if(reply!=null) {
+			PendingCommand pending=pendingCommands.remove(command.getIdLong());
+			if(pending!=null) {
+				pending.record(reply);
+			}
+		}
+	}
+	/**
+	 * gets a {@link Message} in a {@link TextChannel} that contains a String that may not be already sent(and received) but was/will be sent during the tests
+	 * @param tc the {@link TextChannel}
+	 * @param s the String
+	 * @return the {@link Message}
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public Message getMessage(TextChannel tc,String s) {
+		return getMessage(tc,msg->msg.getContentRaw().equals(s));
+	}
+	/**
+	 * gets a {@link Message} in the channel of this context that contains a String that may not be already sent(and received) but was/will be sent during the tests
+	 * @param s the String
+	 * @return the {@link Message}
+	 * @see TestContext#getChannel()
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public Message getMessage(String s) {
+		return getMessage(channel,msg->msg.getContentRaw().equals(s));
+	}
+	/**
+	 * gets a {@link Message} in a {@link TextChannel} that fulfills certain criteria that may not be already sent(and received) but was/will be sent during the tests
+	 * @param tc the {@link TextChannel}
+	 * @param tester a function that returns <code>true</code> if a message is the correct message
+	 * @return the {@link Message} or <code>null</code> if the message was not found until the time expires
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public Message getMessage(TextChannel tc,Predicate<Message> tester) {
+		Message msg=getMessage(tc, tester, new AwaitState(false));
+		onResponse(msg);
+		return msg;
+	}
+	private Message getMessage(TextChannel tc,Predicate<Message> tester,AwaitState await) {
+		if(eventDrivenAwaiting) {
+			return awaitMessage(tc, tester, await);
+		}
+		TestUtils.getMessageTracker().watch(tc);
+		Wrapper<Message> msg=new Wrapper<>();
+		Span span=TestUtils.getTrace().start("await", tc, getCurrentCommand());
+		await.span=span;
+		try{
+			RestScheduler scheduler=TestUtils.getRestScheduler();
+			Awaitility.await().atMost(timeout).pollInSameThread().pollInterval((count,previous)->scheduler.getPollInterval()).until(()->(msg.data=getNewlySentMessage(tc,tester,await))!=null);
+			return msg.data;
+		}catch(ConditionTimeoutException e) {//timeout
+			return null;
+		}finally {
+			span.end();
+		}
+	}
+	private Message awaitMessage(TextChannel tc,Predicate<Message> tester,AwaitState await) {
+		try {
+			return getMessageAsync(tc, tester, await).get();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}catch(ExecutionException e) {
+			Throwable cause=e.getCause();
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+	private CompletableFuture<Message> awaitReceivedMessage(TextChannel tc,Predicate<Message> tester,AwaitState await) {
+		TestUtils.getMessageTracker().watch(tc);
+		CompletableFuture<Message> future=TestUtils.getMessageWaiter().await(tc, msg->{
+			log(msg, await);
+			return tester.test(msg);
+		});
+		ScheduledFuture<?> timeoutTask=TestUtils.getTimeoutScheduler().schedule(()->future.complete(null), timeout.toMillis(), TimeUnit.MILLISECONDS);
+		future.whenComplete((msg,e)->timeoutTask.cancel(false));
+		return future;
+	}
+	/**
+	 * asynchronously gets a {@link Message} in a {@link TextChannel} that fulfills certain criteria that may not be already sent(and received) but was/will be sent during the tests<br>
+	 * The message history is retrieved once in order to find messages that have been sent before. Newer messages are tested as soon as they are received.
+	 * @param tc the {@link TextChannel}
+	 * @param tester a function that returns <code>true</code> if a message is the correct message
+	 * @return a {@link CompletableFuture} that is completed with the {@link Message} or with <code>null</code> if the message was not found until the time expires
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public CompletableFuture<Message> getMessageAsync(TextChannel tc,Predicate<Message> tester) {
+		CompletableFuture<Message> future=getMessageAsync(tc, tester, new AwaitState(false));
+		future.thenAccept(this::onResponse);
+		return future;
+	}
+	private CompletableFuture<Message> getMessageAsync(TextChannel tc,Predicate<Message> tester,AwaitState await) {
+		String command=getCurrentCommand();
+		InteractionTrace trace=TestUtils.getTrace();
+		Span awaitSpan=trace.start("await", tc, command);
+		await.span=awaitSpan;
+		CompletableFuture<Message> future=awaitReceivedMessage(tc, tester, await);
+		future.whenComplete((msg,e)->awaitSpan.end());
+		Span fetchSpan=trace.start("fetch", tc, command, trace.getTestName(), awaitSpan);
+		refreshHistoryAsync(tc).whenComplete((result,e)->{
+			fetchSpan.end();
+			if(e!=null) {
+				future.completeExceptionally(e);
+				return;
+			}
+			try {
+				Message msg=findCachedMessage(tc, tester, await);
+				if(msg!=null) {
+					future.complete(msg);
+				}
+			}catch(RuntimeException ex) {
+				future.completeExceptionally(ex);
+			}
+		});
+		return future;
+	}
+	/**
+	 * asynchronously gets a {@link Message} in the channel of this context that fulfills certain criteria that may not be already sent(and received) but was/will be sent during the tests
+	 * @param tester a function that returns <code>true</code> if a message is the correct message
+	 * @return a {@link CompletableFuture} that is completed with the {@link Message} or with <code>null</code> if the message was not found until the time expires
+	 * @see TestContext#getChannel()
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public CompletableFuture<Message> getMessageAsync(Predicate<Message> tester) {
+		return getMessageAsync(channel, tester);
+	}
+	/**
+	 * gets several messages in a {@link TextChannel} that fulfill certain criteria and may not be already sent(and received) but were/will be sent during the tests<br>
+	 * All criteria are tested against every retrieved or received message in a single pass, so the message history is only retrieved once per poll.
+	 * Every message is used for at most one criteria: the first one in the list that it fulfills and no message has been found for yet.
+	 * @param tc the {@link TextChannel}
+	 * @param testers functions that return <code>true</code> if a message is the correct message
+	 * @return the {@link AwaitResult} containing the messages in the order of the criteria, criteria no message has been found for until the time expires are reported as timed out
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public AwaitResult awaitAll(TextChannel tc,List<Predicate<Message>> testers) {
+		return await(tc, testers, testers.size());
+	}
+	/**
+	 * gets several messages in the channel of this context that fulfill certain criteria and may not be already sent(and received) but were/will be sent during the tests
+	 * @param testers functions that return <code>true</code> if a message is the correct message
+	 * @return the {@link AwaitResult} containing the messages in the order of the criteria
+	 * @see TestContext#awaitAll(TextChannel, List)
+	 * @see TestContext#getChannel()
+	 */
+	public AwaitResult awaitAll(List<Predicate<Message>> testers) {
+		return awaitAll(channel, testers);
+	}
+	/**
+	 * gets the first {@link Message} in a {@link TextChannel} that fulfills any of several criteria and may not be already sent(and received) but was/will be sent during the tests<br>
+	 * All criteria are tested against every retrieved or received message in a single pass.
+	 * @param tc the {@link TextChannel}
+	 * @param testers functions that return <code>true</code> if a message is the correct message
+	 * @return the {@link AwaitResult} containing the message at the index of the first criteria it fulfills, the other criteria are only reported as timed out if no message has been found
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public AwaitResult awaitAny(TextChannel tc,List<Predicate<Message>> testers) {
+		return await(tc, testers, Math.min(1, testers.size()));
+	}
+	/**
+	 * gets the first {@link Message} in the channel of this context that fulfills any of several criteria and may not be already sent(and received) but was/will be sent during the tests
+	 * @param testers functions that return <code>true</code> if a message is the correct message
+	 * @return the {@link AwaitResult} containing the message at the index of the first criteria it fulfills
+	 * @see TestContext#awaitAny(TextChannel, List)
+	 * @see TestContext#getChannel()
+	 */
+	public AwaitResult awaitAny(List<Predicate<Message>> testers) {
+		return awaitAny(channel, testers);
+	}
+	private AwaitResult await(TextChannel tc,List<Predicate<Message>> testers,int required) {
+		Expectations expectations=new Expectations(testers, required);
+		if(required>0) {
+			//messages are assigned in the order they have been sent, no matter if they are retrieved or received
+			onResponse(getMessage(tc, expectations::test, new AwaitState(true)));
+		}
+		return expectations.getResult();
+	}
+	/**
+	 * criteria of several messages that are awaited at once
+	 */
+	private static final class Expectations{
+		private final List<Predicate<Message>> testers;
+		private final Message[] messages;
+		private final int required;
+		private final TLongSet tested=new TLongHashSet();
+		private int found=0;
+
+		private Expectations(List<Predicate<Message>> testers,int required) {
+			this.testers=new ArrayList<>(testers);
+			this.messages=new Message[testers.size()];
+			this.required=required;
+		}
+		/**
+		 * assigns a message to the first criteria without message it fulfills
+		 * @param msg the {@link Message}
+		 * @return <code>true</code> if enough messages have been found, else <code>false</code>
+		 */
+		private synchronized boolean test(Message msg) {
+			if(found<required&&tested.add(msg.getIdLong())) {
+				for (int i = 0; i < messages.length; i++) {
+					if(messages[i]==null&&testers.get(i).test(msg)) {
+						messages[i]=msg;
+						found++;
+						break;
+					}
+				}
+			}
+			return found>=required;
+		}
+		private synchronized AwaitResult getResult() {
+			return new AwaitResult(messages.clone(), found<required);
+		}
+	}
+	/**
+	 * gets a {@link Message} in the channel of this context that fulfills certain criteria that may not be already sent(and received) but was/will be sent during the tests
+	 * @param tester a function that returns <code>true</code> if a message is the correct message
+	 * @return the {@link Message}
+	 * @see TestContext#getChannel()
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public Message getMessage(Predicate<Message> tester) {
+		return getMessage(channel,tester);
+	}
+	/**
+	 * gets a {@link Message} in a {@link TextChannel} that was sent by a certain user that may not be already sent(and received) but was/will be sent during the tests
+	 * @param tc the {@link TextChannel}
+	 * @param member the user
+	 * @return the {@link Message}
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public Message getMessage(TextChannel tc,Member member) {
+		return getMessage(tc, msg->Objects.equals(msg.getMember(),member));
+	}
+	/**
+	 * gets a {@link Message} in the channel of this context was sent by a certain user that may not be already sent(and received) but was/will be sent during the tests
+	 * @param member the user
+	 * @return the {@link Message}
+	 * @see TestContext#getChannel()
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public Message getMessage(Member member) {
+		return getMessage(channel, member);
+	}
+	/**
+	 * gets a {@link Message} in a {@link TextChannel} that may not be already sent(and received) but was/will be sent during the tests
+	 * @param tc the {@link TextChannel}
+	 * @return the {@link Message}
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public Message getMessage(TextChannel tc) {
+		return getMessage(tc, msg->true);
+	}
+	/**
+	 * gets a {@link Message} in the channel of this context that may not be already sent(and received) but was/will be sent during the tests
+	 * @return the {@link Message}
+	 * @see TestContext#getChannel()
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public Message getMessage() {
+		return getMessage(channel, msg->true);
+	}
+	/**
+	 * sends a message in a {@link TextChannel} and waits until it has been sent
+	 * @param message the content of the message
+	 * @param tc the {@link TextChannel} where the message should be sent
+	 * @return the sent {@link Message}
+	 */
+	public Message sendMessage(String message,TextChannel tc) {
+		return sendMessage(TestUtils.getBotAccount(), message, tc);
+	}
+	/**
+	 * sends a message in a {@link TextChannel} as a specific tester account and waits until it has been sent
+	 * @param account the {@link TesterAccount} that should send the message
+	 * @param message the content of the message
+	 * @param tc the {@link TextChannel} where the message should be sent
+	 * @return the sent {@link Message}
+	 * @see TestUtils#nextTesterAccount()
+	 */
+	public Message sendMessage(TesterAccount account,String message,TextChannel tc) {
+		TextChannel accountChannel=account.resolve(tc);
+		MessageTracker tracker=TestUtils.getMessageTracker();
+		tracker.watch(tc);
+		PendingSend pending=tracker.beforeSend(account, tc, message);
+		Span span=TestUtils.getTrace().start("send", tc, message);
+		Message msg=null;
+		try {
+			msg=TestUtils.getRestScheduler().complete(Priority.SEND, accountChannel.sendMessage(message));
+		}finally {
+			span.end();
+			tracker.afterSend(pending, msg);
+		}
+		onMessageSent(msg, TestUtils.getTrace().getTestName());
+		return msg;
+	}
+	/**
+	 * queues a sent {@link Message} for being deleted automatically
+	 * @param msg the sent {@link Message}
+	 * @param test the name of the test that sent the message, used for tracing
+	 */
+	private void onMessageSent(Message msg,String test) {
+		int numOfMessagesForAutoDelete=this.numOfMessagesForAutoDelete;
+		if(numOfMessagesForAutoDelete>0) {
+			toDelete.offer(msg);
+			if(numOfMessagesForAutoDelete<=toDelete.size()) {
+				Message oldest=toDelete.poll();
+				if(oldest!=null) {
+					deleteLater(oldest, Math.min(numOfMessagesForAutoDelete, MessageTracker.MAX_MESSAGES_PER_BULK_DELETE), test);
+				}
+			}
+		}
+	}
+	/**
+	 * marks a {@link Message} for deletion and deletes all marked messages of its channel in bulk as soon as enough messages have been marked
+	 * @param msg the {@link Message} to delete
+	 * @param batchSize the number of messages that are deleted together
+	 * @param test the name of the test that sent the message, used for tracing
+	 */
+	private void deleteLater(Message msg,int batchSize,String test) {
+		//messages of all tester accounts are deleted by the bot
+		TextChannel tc=getBotChannel(msg.getTextChannel());
+		long[] ids;
+		synchronized(pendingDeletes) {
+			TLongList pending=pendingDeletes.computeIfAbsent(tc.getIdLong(), id->new TLongArrayList(batchSize));
+			pending.add(msg.getIdLong());
+			if(pending.size()<batchSize) {
+				return;
+			}
+			ids=pending.toArray();
+			pending.clear();
+		}
+		TestUtils.getMessageTracker().delete(tc, ids, test);
+	}
+	/**
+	 * sends a message in a {@link TextChannel} without waiting until it has been sent
+	 * @param message the content of the message
+	 * @param tc the {@link TextChannel} where the message should be sent
+	 * @return a {@link CompletableFuture} that is completed with the sent {@link Message}
+	 */
+	public CompletableFuture<Message> sendMessageAsync(String message,TextChannel tc) {
+		return sendMessageAsync(TestUtils.getBotAccount(), message, tc);
+	}
+	/**
+	 * sends a message in a {@link TextChannel} as a specific tester account without waiting until it has been sent
+	 * @param account the {@link TesterAccount} that should send the message
+	 * @param message the content of the message
+	 * @param tc the {@link TextChannel} where the message should be sent
+	 * @return a {@link CompletableFuture} that is completed with the sent {@link Message}
+	 * @see TestUtils#nextTesterAccount()
+	 */
+	public CompletableFuture<Message> sendMessageAsync(TesterAccount account,String message,TextChannel tc) {
+		TextChannel accountChannel=account.resolve(tc);
+		CompletableFuture<Message> future=new CompletableFuture<>();
+		MessageTracker tracker=TestUtils.getMessageTracker();
+		tracker.watch(tc);
+		PendingSend pending=tracker.beforeSend(account, tc, message);
+		InteractionTrace trace=TestUtils.getTrace();
+		String test=trace.getTestName();
+		Span span=trace.start("send", tc, message, test);
+		TestUtils.getRestScheduler().submit(Priority.SEND, accountChannel.sendMessage(message)).whenComplete((msg,e)->{
+			span.end();
+			if(e!=null) {
+				tracker.afterSend(pending, null);
+				future.completeExceptionally(e);
+				return;
+			}
+			tracker.afterSend(pending, msg);
+			onMessageSent(msg, test);
+			future.complete(msg);
+		});
+		return future;
+	}
+	/**
+	 * sends a message in the channel of this context without waiting until it has been sent
+	 * @param message the content of the message
+	 * @return a {@link CompletableFuture} that is completed with the sent {@link Message}
+	 * @see TestContext#getChannel()
+	 */
+	public CompletableFuture<Message> sendMessageAsync(String message) {
+		return sendMessageAsync(message, channel);
+	}
+	/**
+	 * sends a message in the channel of this context and waits until it has been sent
+	 * @param message the content of the message
+	 * @return the sent {@link Message}
+	 * @see TestContext#getChannel()
+	 */
+	public Message sendMessage(String message) {
+		return sendMessage(message, channel);
+	}
+	/**
+	 * sends a command for the bot to test in the channel of this context<br>
+	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>.
+	 * The time until the first response is awaited is recorded in the {@link TestUtils#getLatencyStatistics() latency statistics}.
+	 * @param content the content that should be added to the message after the prefix
+	 * @return the sent command, can be used for awaiting replies using {@link TestContext#getReply(Message, Predicate)}
+	 * @see TestContext#getChannel()
+	 */
+	public Message sendCommand(String content) {
+		return sendCommand(content, channel);
+	}
+	/**
+	 * sends a command for the bot to test in a {@link TextChannel}<br>
+	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>.
+	 * The time until the first response is awaited is recorded in the {@link TestUtils#getLatencyStatistics() latency statistics}.
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tc the {@link TextChannel} where the command should be sent
+	 * @return the sent command, can be used for awaiting replies using {@link TestContext#getReply(Message, Predicate)}
+	 */
+	public Message sendCommand(String content,TextChannel tc) {
+		return sendCommand(TestUtils.getBotAccount(), content, tc);
+	}
+	/**
+	 * sends a command for the bot to test in a {@link TextChannel} as a specific tester account<br>
+	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>.
+	 * @param account the {@link TesterAccount} that should send the command
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tc the {@link TextChannel} where the command should be sent
+	 * @return the sent command, can be used for awaiting replies using {@link TestContext#getReply(Message, Predicate)}
+	 * @see TestUtils#nextTesterAccount()
+	 * @see TestUtils#isAddressedTo(Message, TesterAccount)
+	 */
+	public Message sendCommand(TesterAccount account,String content,TextChannel tc) {
+		PendingCommand command=startCommand(content);
+		Message msg=sendMessage(account, command.message, tc);
+		onCommandSent(command, msg);
+		return msg;
+	}
+	/**
+	 * sends a command for the bot to test in the channel of this context as a specific tester account
+	 * @param account the {@link TesterAccount} that should send the command
+	 * @param content the content that should be added to the message after the prefix
+	 * @return the sent command, can be used for awaiting replies using {@link TestContext#getReply(Message, Predicate)}
+	 * @see TestContext#sendCommand(TesterAccount, String, TextChannel)
+	 * @see TestContext#getChannel()
+	 */
+	public Message sendCommand(TesterAccount account,String content) {
+		return sendCommand(account, content, channel);
+	}
+	/**
+	 * gets a reply of the bot to a command that may not be already sent(and received) but was/will be sent during the tests<br>
+	 * Only messages of the bot that have been sent after the command are accepted. Messages sent by the tester are ignored.
+	 * Every message is only accepted as reply to one command, so concurrent commands in the same channel do not share replies.
+	 * Messages are tested in the order they have been sent, so replies to several commands sent at once are assigned in order if they are awaited in the order the commands have been sent.<br>
+	 * The time until the reply is recorded as latency of this command.
+	 * @param command the command as returned by {@link TestContext#sendCommand(String, TextChannel)}
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return the reply or <code>null</code> if no reply was found until the time expires
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public Message getReply(Message command,Predicate<Message> tester) {
+		Message reply=getMessage(getBotChannel(command.getTextChannel()), correlate(command.getIdLong(), tester), new AwaitState(true));
+		onReply(command, reply);
+		return reply;
+	}
+	/**
+	 * asynchronously gets a reply of the bot to a command that may not be already sent(and received) but was/will be sent during the tests
+	 * @param command the command as returned by {@link TestContext#sendCommand(String, TextChannel)} or {@link TestContext#sendCommandAsync(String, TextChannel)}
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return a {@link CompletableFuture} that is completed with the reply or with <code>null</code> if no reply was found until the time expires
+	 * @see TestContext#getReply(Message, Predicate)
+	 */
+	public CompletableFuture<Message> getReplyAsync(Message command,Predicate<Message> tester) {
+		CompletableFuture<Message> reply=getMessageAsync(getBotChannel(command.getTextChannel()), correlate(command.getIdLong(), tester), new AwaitState(true));
+		reply.thenAccept(msg->onReply(command, msg));
+		return reply;
+	}
+	/**
+	 * gets a {@link TextChannel} as seen by the bot<br>
+	 * Messages sent by tester accounts belong to the {@link JDA} instance of the account, the bot is needed for seeing its own replies.
+	 * @param tc the {@link TextChannel} of any account
+	 * @return the same channel of the bot or the given channel if the bot does not know it
+	 */
+	private static TextChannel getBotChannel(TextChannel tc) {
+		TextChannel botChannel=TestUtils.getTextChannelById(tc.getIdLong());
+		return botChannel==null?tc:botChannel;
+	}
+	/**
+	 * creates a function that only accepts unclaimed messages of the bot that have been sent after a command and claims accepted messages
+	 * @param commandId the Snowflake ID of the command
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return the function
+	 */
+	private static Predicate<Message> correlate(long commandId,Predicate<Message> tester){
+		return msg->msg.getIdLong()>commandId
+				&&isReplyCandidate(msg)
+				&&tester.test(msg)
+				&&TestUtils.getMessageTracker().claim(msg.getIdLong());
+	}
+	/**
+	 * checks if a message has been sent by the bot and not by the tester<br>
+	 * The message may have been received by any account, so it is compared with the bot and not with the receiving account.
+	 * @param msg the {@link Message}
+	 * @return <code>true</code> if the message may be a reply to a command, else <code>false</code>
+	 */
+	private static boolean isReplyCandidate(Message msg) {
+		return msg.getAuthor().getIdLong()==TestUtils.getJDA().getSelfUser().getIdLong()
+				&&!TestUtils.getMessageTracker().isSentByTester(msg);
+	}
+	/**
+	 * correlates a command that is sent without waiting with its reply<br>
+	 * Until the command has been sent, messages of the bot that have been sent after the await started are kept as candidates.
+	 * As soon as the Snowflake ID of the command is known, the candidates are checked again so late replies to earlier commands are not accepted.
+	 */
+	private static final class ReplyCorrelation{
+		private final Predicate<Message> tester;
+		private final long minId=TestUtils.getIdAt(System.currentTimeMillis()-MAX_CLOCK_SKEW_MILLIS);
+		private final List<Message> candidates=new ArrayList<>();
+		private long commandId=0;
+
+		private ReplyCorrelation(Predicate<Message> tester) {
+			this.tester=tester;
+		}
+		/**
+		 * tests a received message
+		 * @param msg the {@link Message}
+		 * @return <code>true</code> if the message is the reply to the command and has been claimed, else <code>false</code>
+		 */
+		private synchronized boolean test(Message msg) {
+			if(commandId!=0) {
+				return msg.getIdLong()>commandId
+						&&isReplyCandidate(msg)
+						&&tester.test(msg)
+						&&TestUtils.getMessageTracker().claim(msg.getIdLong());
+			}
+			if(msg.getIdLong()>minId&&isReplyCandidate(msg)&&tester.test(msg)) {
+				candidates.add(msg);
+			}
+			return false;
+		}
+		/**
+		 * sets the Snowflake ID of the command after it has been sent
+		 * @param commandId the ID of the command
+		 * @return the first candidate that has been sent after the command and could be claimed or <code>null</code> if there is none
+		 */
+		private synchronized Message onSent(long commandId) {
+			this.commandId=commandId;
+			try {
+				for (Message msg : candidates) {
+					if(msg.getIdLong()>commandId&&TestUtils.getMessageTracker().claim(msg.getIdLong())) {
+						return msg;
+					}
+				}
+				return null;
+			}finally {
+				candidates.clear();
+			}
+		}
+	}
+	/**
+	 * sends a command for the bot to test in the channel of this context without waiting until it has been sent<br>
+	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>.
+	 * The time until the first response is awaited is recorded in the {@link TestUtils#getLatencyStatistics() latency statistics}.
+	 * @param content the content that should be added to the message after the prefix
+	 * @return a {@link CompletableFuture} that is completed with the sent {@link Message}
+	 * @see TestContext#getChannel()
+	 */
+	public CompletableFuture<Message> sendCommandAsync(String content) {
+		return sendCommandAsync(content, channel);
+	}
+	/**
+	 * sends a command for the bot to test in a {@link TextChannel} without waiting until it has been sent<br>
+	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>.
+	 * The time until the first response is awaited is recorded in the {@link TestUtils#getLatencyStatistics() latency statistics}.
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tc the {@link TextChannel} where the command should be sent
+	 * @return a {@link CompletableFuture} that is completed with the sent {@link Message}
+	 */
+	public CompletableFuture<Message> sendCommandAsync(String content,TextChannel tc) {
+		PendingCommand command=startCommand(content);
+		return sendMessageAsync(command.message, tc).thenApply(msg->{
+			onCommandSent(command, msg);
+			return msg;
+		});
+	}
+	/**
+	 * sends a command for the bot to test in a {@link TextChannel} and asynchronously waits for a reply<br>
+	 * Only messages that are received after the command has been sent are checked, the message history is not retrieved.
+	 * Only messages of the bot are accepted, messages sent by the tester (including the command itself) are ignored.
+	 * Every message is only accepted as reply to one command, so concurrent commands in the same channel do not share replies.
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tc the {@link TextChannel} where the command should be sent
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return a {@link CompletableFuture} that is completed with the reply or with <code>null</code> if no reply was found until the time expires
+	 * @see TestContext#getTimeout()
+	 * @see TestContext#setTimeout(Duration)
+	 */
+	public CompletableFuture<Message> expectReply(String content,TextChannel tc,Predicate<Message> tester) {
+		return expectReply(TestUtils.getBotAccount(), content, tc, tester);
+	}
+	/**
+	 * sends a command for the bot to test in a {@link TextChannel} as a specific tester account and asynchronously waits for a reply<br>
+	 * Replies are correlated like in {@link TestContext#expectReply(String, TextChannel, Predicate)}.
+	 * In order to only accept replies addressed to the account, {@link TestUtils#isAddressedTo(Message, TesterAccount)} can be used in the tester.
+	 * @param account the {@link TesterAccount} that should send the command
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tc the {@link TextChannel} where the command should be sent
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return a {@link CompletableFuture} that is completed with the reply or with <code>null</code> if no reply was found until the time expires
+	 * @see TestUtils#nextTesterAccount()
+	 */
+	public CompletableFuture<Message> expectReply(TesterAccount account,String content,TextChannel tc,Predicate<Message> tester) {
+		PendingCommand command=new PendingCommand(TestUtils.getPrefix()+content);
+		Span span=TestUtils.getTrace().start("await", tc, command.message);
+		ReplyCorrelation correlation=new ReplyCorrelation(tester);
+		CompletableFuture<Message> reply=awaitReceivedMessage(tc, correlation::test, new AwaitState(false));
+		reply.whenComplete((msg,e)->span.end());
+		reply.thenAccept(msg->{
+			if(msg!=null) {
+				command.record(msg);
+			}
+		});
+		sendMessageAsync(account, command.message, tc).whenComplete((msg,e)->{
+			if(e!=null) {
+				reply.completeExceptionally(e);
+				return;
+			}
+			Message candidate=correlation.onSent(msg.getIdLong());
+			if(candidate!=null) {
+				reply.complete(candidate);
+			}
+		});
+		return reply;
+	}
+	/**
+	 * sends a command for the bot to test in the channel of this context and asynchronously waits for a reply
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return a {@link CompletableFuture} that is completed with the reply or with <code>null</code> if no reply was found until the time expires
+	 * @see TestContext#expectReply(String, TextChannel, Predicate)
+	 * @see TestContext#getChannel()
+	 */
+	public CompletableFuture<Message> expectReply(String content,Predicate<Message> tester) {
+		return expectReply(content, channel, tester);
+	}
+	/**
+	 * sends a command for the bot to test in the channel of this context as a specific tester account and asynchronously waits for a reply
+	 * @param account the {@link TesterAccount} that should send the command
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return a {@link CompletableFuture} that is completed with the reply or with <code>null</code> if no reply was found until the time expires
+	 * @see TestContext#expectReply(TesterAccount, String, TextChannel, Predicate)
+	 * @see TestContext#getChannel()
+	 */
+	public CompletableFuture<Message> expectReply(TesterAccount account,String content,Predicate<Message> tester) {
+		return expectReply(account, content, channel, tester);
+	}
+	/**
+	 * sets the number of messages to test when searching for a message
+	 * @param numOfMessagesToCheck the new number of messages to check
+	 * @see TestContext#getAlreadySentMessage(TextChannel, Predicate)
+	 * @see TestContext#getMessage(TextChannel, Predicate)
+	 */
+	public void setNumOfMessagesToCheck(int numOfMessagesToCheck) {
+		this.numOfMessagesToCheck = numOfMessagesToCheck;
+	}
+	/**
+	 * gets the number of messages to test when searching for a message
+	 * @return the new number of messages to check
+	 * @see TestContext#getAlreadySentMessage(TextChannel, Predicate)
+	 * @see TestContext#getMessage(TextChannel, Predicate)
+	 */
+	public int getNumOfMessagesToCheck() {
+		return numOfMessagesToCheck;
+	}
+	/**
+	 * gets the number of messages that need to be sent until the first message is deleted<br>
+	 * If n messages are sent by using this context, the first message will be automatically deleted.
+	 * Messages are deleted in bulk, so up to n messages (at most 100) are collected per channel before they are deleted together.
+	 * @return the number of messages for deletion (n)
+	 * @see TestContext#sendMessage(String, TextChannel)
+	 * @see TestContext#sendCommand(String, TextChannel)
+	 */
+	public int getNumOfMessagesForAutoDelete() {
+		return numOfMessagesForAutoDelete;
+	}
+	/**
+	 * sets the number of messages that need to be sent until the first message is deleted<br>
+	 * If n messages are sent by using this context, the first message will be automatically deleted.
+	 * Messages are deleted in bulk, so up to n messages (at most 100) are collected per channel before they are deleted together.
+	 * @param numOfMessagesForAutoDelete the number of messages for deletion (n)
+	 * @see TestContext#sendMessage(String, TextChannel)
+	 * @see TestContext#sendCommand(String, TextChannel)
+	 */
+	public void setNumOfMessagesForAutoDelete(int numOfMessagesForAutoDelete) {
+		this.numOfMessagesForAutoDelete = numOfMessagesForAutoDelete;
+	}
+	/**
+	 * sets the Logger where all messages that are tested in this context will be logged to
+	 * @param logger a logger that accepts the logged String or <code>null</code> if messages should not be logged
+	 * @see TestContext#setMessageLogger(MessageLogger)
+	 */
+	public void setLogger(Consumer<String> logger) {
+		this.logger = logger==null?null:MessageLogger.of(logger);
+	}
+	/**
+	 * gets the {@link MessageLogger} that receives all messages that are tested in this context
+	 * @return the {@link MessageLogger} or <code>null</code> if messages are not logged
+	 */
+	public MessageLogger getMessageLogger() {
+		return logger;
+	}
+	/**
+	 * sets the {@link MessageLogger} that receives all messages that are tested in this context<br>
+	 * Every message is logged at most once per await. Messages are only rendered if the logger requests it.
+	 * @param logger the {@link MessageLogger} or <code>null</code> if messages should not be logged
+	 * @see MessageLogger#async(MessageLogger)
+	 */
+	public void setMessageLogger(MessageLogger logger) {
+		this.logger = logger;
+	}
+	/**
+	 * checks if messages are awaited using gateway events instead of polling the message history
+	 * @return <code>true</code> if received messages are used for awaiting, else <code>false</code>
+	 * @see TestContext#setEventDrivenAwaiting(boolean)
+	 */
+	public boolean isEventDrivenAwaiting() {
+		return eventDrivenAwaiting;
+	}
+	/**
+	 * sets whether messages should be awaited using gateway events instead of polling the message history<br>
+	 * If enabled, the message history is only retrieved once per await in order to find messages that have been sent before the await started.
+	 * All other messages are tested as soon as they are received.
+	 * @param eventDrivenAwaiting <code>true</code> if received messages should be used for awaiting, else <code>false</code>
+	 * @see TestContext#getMessage(TextChannel, Predicate)
+	 */
+	public void setEventDrivenAwaiting(boolean eventDrivenAwaiting) {
+		this.eventDrivenAwaiting = eventDrivenAwaiting;
+	}
+}
@@ -7,8 +7,11 @@
 package io.github.jdiscordbots.jdatesting;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Paths;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.time.Duration;
@@ -18,32 +21,41 @@ import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
-import java.util.Queue;
+import java.util.ServiceLoader;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
-import org.awaitility.Awaitility;
-import org.awaitility.Durations;
-import org.awaitility.core.ConditionTimeoutException;
-
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.MessageEmbed.Field;
+import net.dv8tion.jda.api.events.ReadyEvent;
 import net.dv8tion.jda.api.events.ReconnectedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.sharding.ShardManager;
 import net.dv8tion.jda.internal.entities.SelfUserImpl;
+import net.dv8tion.jda.internal.entities.UserImpl;
 
 /**
  * various utilities for JDA feature tests<br>
@@ -56,69 +68,347 @@ import net.dv8tion.jda.internal.entities.SelfUserImpl;
  * 	<li><i>testing-channel</i> the Discord Text Channel where commands should be tested</li>
  * 	<li><i>testing-prefix</i> the command-prefix of the bot to test</li>
  * </ul>
+ * Optionally, it can contain values for the following keys
+ * <ul>
+ * 	<li><i>testing-channels</i> a comma-separated list of Discord Text Channels that can be leased by tests running concurrently</li>
+ * 	<li><i>testing-offline</i> <code>true</code> if the tests should run against a local stand-in instead of Discord, see {@link OfflineDiscord}</li>
+ * 	<li><i>latency-report</i> a file where the response latencies of the bot should be written to when the tests are done (CSV if the name ends with <code>.csv</code>, else JSON), see {@link TestUtils#getLatencyStatistics()}</li>
+ * 	<li><i>rest-concurrency</i> the maximum number of requests to Discord that are executed at the same time (default: 4, unlimited when running offline), see {@link TestUtils#getRestScheduler()}</li>
+ * 	<li><i>tester-factory-class</i> the fully qualified name of the class where the <i>tester-factory-method</i> is located</li>
+ * 	<li><i>tester-factory-method</i> the name of the method that loads and returns a {@link Collection} of {@link JDA} Objects of additional accounts that send commands, see {@link TestUtils#getTesterAccounts()}</li>
+ * 	<li><i>trace-file</i> a file where spans of sending, fetching, matching and cleaning up should be written to while the tests are running (OTLP JSON lines if the name ends with <code>.otlp.json</code>, else Chrome trace JSON), see {@link TestUtils#getTrace()}</li>
+ * 	<li><i>interaction-recording</i> a file where every command and the response of the bot should be appended to, see {@link InteractionReplay}</li>
+ * </ul>
+ * The <i>jda-factory-method</i> may also return a {@link ShardManager} if the bot is sharded. Lookups, listeners and cleanup are routed to the shard an entity belongs to.<br>
+ * Instead of the <i>jda-factory-class</i> and <i>jda-factory-method</i>, a {@link JDAFactory} or {@link ShardManagerFactory} service can be provided.<br>
+ * The {@link JDA} instance is created in a background thread as soon as this class is loaded. Methods that need it wait until it is ready.<br>
+ * The methods for sending and awaiting messages use the default {@link TestContext}.
+ * Tests that should run concurrently should use their own {@link TestContext} instead.
  */
 @SuppressWarnings("unchecked")
 public final class TestUtils {
 	
-	private static JDA jda=null;
+	private static volatile JDA jda=null;
+	private static volatile ShardManager shardManager=null;
 	private static Properties props=new Properties();
+	private static final String prefix;
+	private static final long DISCORD_EPOCH=1420070400000L;
 	private static OffsetDateTime start=Instant.now().atOffset(ZoneOffset.UTC);
-	private static Duration timeout=Durations.FIVE_SECONDS;
-	private static Consumer<String> logger=null;
-	private static int numOfMessagesToCheck=100;
-	private static int numOfMessagesForAutoDelete=-1;
-	private static Queue<Message> toDelete=new LinkedList<>();
+	private static final long startId=((start.toInstant().toEpochMilli()-DISCORD_EPOCH+1)<<22)-1;
+	private static volatile TestContext defaultContext;
+	private static volatile long testingChannelId;
+	private static volatile TextChannel testingChannel;
+	private static volatile List<TextChannel> testingChannels;
+	private static volatile TesterAccount botAccount;
+	private static volatile List<TesterAccount> testerAccounts;
+	private static final AtomicInteger nextTesterAccount=new AtomicInteger();
+	private static final BlockingQueue<TextChannel> channelPool=new LinkedBlockingQueue<>();
+	private static final MessageWaiter waiter=new MessageWaiter();
+	private static final MessageCache cache=new MessageCache(1000);
+	private static final MessageTracker tracker=new MessageTracker();
+	private static final LatencyStatistics latencies=new LatencyStatistics();
+	private static final InteractionRecorder recorder;
+	private static final RestScheduler restScheduler;
+	private static final InteractionTrace trace;
+	private static final Map<String, Duration> startupTimings=Collections.synchronizedMap(new LinkedHashMap<>());
+	private static final CompletableFuture<Void> bootstrap=new CompletableFuture<>();
+	private static final ScheduledExecutorService timeoutScheduler=Executors.newSingleThreadScheduledExecutor(r->{
+		Thread t=new Thread(r, "TestUtils timeout");
+		t.setDaemon(true);
+		return t;
+	});
 	
 	static{
+		long startNanos=System.nanoTime();
 		try {
 			props.load(TestUtils.class.getClassLoader().getResourceAsStream("jda-tests.properties"));
-			String jdaGetterClassName = props.getProperty("jda-factory-class");
-			String jdaGetterMethodName=props.getProperty("jda-factory-method");
-			Class<?> factoryClass = Class.forName(jdaGetterClassName);
-			Method factoryMethod = factoryClass.getMethod(jdaGetterMethodName);
-			jda = (JDA) factoryMethod.invoke(null);
-			
-			Class<?> hooksClass=Class.forName("java.lang.ApplicationShutdownHooks");
-			java.lang.reflect.Field hooksField = hooksClass.getDeclaredField("hooks");
-			Map<Thread, Thread> hookMap;
-			try {
-				AccessController.doPrivileged((PrivilegedAction<Void>)()->{hooksField.setAccessible(true);return null;});
-				hookMap = (Map<Thread, Thread>) hooksField.get(null);
-			}catch(RuntimeException e) {
-				if("java.lang.reflect.InaccessibleObjectException".equals(e.getClass().getCanonicalName())){
-					hookMap=new HashMap<>();
-				}else {
-					throw e;
-				}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		prefix=props.getProperty("testing-prefix");
+		String restConcurrency=props.getProperty("rest-concurrency");
+		int maxRequests;
+		if(restConcurrency!=null) {
+			maxRequests=Integer.parseInt(restConcurrency);
+		}else if(Boolean.parseBoolean(props.getProperty("testing-offline"))) {
+			//there are no rate limits offline
+			maxRequests=Integer.MAX_VALUE;
+		}else {
+			maxRequests=4;
+		}
+		restScheduler=new RestScheduler(maxRequests, timeoutScheduler);
+		String traceFile=props.getProperty("trace-file");
+		String recording=props.getProperty("interaction-recording");
+		try {
+			trace=new InteractionTrace(traceFile==null?null:Paths.get(traceFile));
+			recorder=recording==null?null:new InteractionRecorder(Paths.get(recording));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		recordStartupPhase("properties", startNanos);
+		Thread bootstrapThread=new Thread(TestUtils::bootstrap, "TestUtils bootstrap");
+		bootstrapThread.setDaemon(true);
+		bootstrapThread.start();
+	}
+	/**
+	 * creates the {@link JDA} instance and sets up everything that depends on it<br>
+	 * This is executed in a background thread so tests only need to wait for it when they need {@link JDA}.
+	 */
+	private static void bootstrap() {
+		try {
+			long phaseStart=System.nanoTime();
+			if(Boolean.parseBoolean(props.getProperty("testing-offline"))) {
+				OfflineDiscord.start(props);
+				phaseStart=recordStartupPhase("offline", phaseStart);
+			}
+			Object bot=createBot();
+			phaseStart=recordStartupPhase("factory", phaseStart);
+			List<JDA> shards;
+			if(bot instanceof ShardManager) {
+				ShardManager shardManager=(ShardManager)bot;
+				awaitShards(shardManager);
+				shards=shardManager.getShards();
+				TestUtils.shardManager=shardManager;
+			}else {
+				JDA jda=(JDA)bot;
+				jda.awaitReady();
+				shards=Collections.singletonList(jda);
+				TestUtils.jda=jda;
 			}
-			Collection<Thread> hooks = new HashSet<>(hookMap.values());
-			hookMap.clear();
-			Runtime.getRuntime().addShutdownHook(new Thread(()->{
-				List<Message> messages=new ArrayList<>();
-				for(Message msg:getTestingChannel().getIterableHistory().cache(true)){
-					if(isMessageSentDuringTest(msg)) {
-						if(msg.getAuthor().equals(jda.getSelfUser())) {
-							messages.add(msg);
+			phaseStart=recordStartupPhase("ready", phaseStart);
+			registerShutdownHook();
+			for (JDA shard : shards) {
+				((SelfUserImpl)shard.getSelfUser()).setBot(false);
+			}
+			addEventListener(new ListenerAdapter() {
+				@Override
+				public void onReady(ReadyEvent event) {
+					//a shard has been restarted
+					refresh(event.getJDA());
+				}
+				@Override
+				public void onReconnect(ReconnectedEvent event) {
+					refresh(event.getJDA());
+				}
+				private void refresh(JDA shard) {
+					((SelfUserImpl)shard.getSelfUser()).setBot(false);
+					TextChannel channel=getTextChannelById(testingChannelId);
+					if(channel!=null) {
+						testingChannel=channel;
+						if(TestUtils.shardManager!=null) {
+							jda=channel.getJDA();
 						}
-					}else {
-						break;
 					}
+					markTesterAccounts();
 				}
-				getTestingChannel().purgeMessages(messages);
+			}, waiter, cache, tracker);
+			phaseStart=recordStartupPhase("setup", phaseStart);
+			testingChannelId=Long.parseUnsignedLong(props.getProperty("testing-channel"));
+			testingChannel=getTextChannelById(testingChannelId);
+			if(shardManager!=null) {
+				jda=testingChannel.getJDA();
+			}
+			defaultContext=new TestContext(testingChannel, null);
+			List<TextChannel> channels=new ArrayList<>();
+			String channelIds=props.getProperty("testing-channels");
+			if(channelIds==null) {
+				channels.add(testingChannel);
+			}else {
+				for (String channelId : channelIds.split(",")) {
+					channels.add(getTextChannelById(Long.parseUnsignedLong(channelId.trim())));
+				}
+			}
+			testingChannels=Collections.unmodifiableList(channels);
+			tracker.watch(testingChannel);
+			for (TextChannel channel : channels) {
+				tracker.watch(channel);
+			}
+			channelPool.addAll(channels);
+			phaseStart=recordStartupPhase("channels", phaseStart);
+			botAccount=new TesterAccount(jda, true);
+			testerAccounts=createTesterAccounts();
+			markTesterAccounts();
+			recordStartupPhase("testers", phaseStart);
+			bootstrap.complete(null);
+		}catch(Throwable e) {
+			bootstrap.completeExceptionally(e);
+		}
+	}
+	/**
+	 * creates the {@link JDA} or {@link ShardManager} instance using the <i>jda-factory-method</i>
+	 * or a {@link JDAFactory} or {@link ShardManagerFactory} service if no <i>jda-factory-class</i> is specified
+	 * @return the {@link JDA} or {@link ShardManager} instance
+	 * @throws Throwable if the factory fails
+	 */
+	private static Object createBot() throws Throwable {
+		String factoryClassName=props.getProperty("jda-factory-class");
+		if(factoryClassName==null) {
+			Iterator<JDAFactory> factories=ServiceLoader.load(JDAFactory.class).iterator();
+			if(factories.hasNext()) {
+				return factories.next().createJDA();
+			}
+			Iterator<ShardManagerFactory> shardManagerFactories=ServiceLoader.load(ShardManagerFactory.class).iterator();
+			if(shardManagerFactories.hasNext()) {
+				return shardManagerFactories.next().createShardManager();
+			}
+			throw new IllegalStateException("no jda-factory-class has been specified and no JDAFactory or ShardManagerFactory service has been found");
+		}
+		Class<?> factoryClass=Class.forName(factoryClassName);
+		MethodHandle factory=MethodHandles.publicLookup().unreflect(factoryClass.getMethod(props.getProperty("jda-factory-method")));
+		Object bot=factory.invoke();
+		if(!(bot instanceof JDA||bot instanceof ShardManager)) {
+			throw new IllegalStateException("the jda-factory-method needs to return a JDA or ShardManager instance");
+		}
+		return bot;
+	}
+	/**
+	 * creates the tester accounts using the <i>tester-factory-method</i> and waits until they are ready
+	 * @return an unmodifiable {@link List} of the tester accounts or only the account of the bot if no <i>tester-factory-class</i> is specified
+	 * @throws Throwable if the factory fails
+	 */
+	private static List<TesterAccount> createTesterAccounts() throws Throwable {
+		String factoryClassName=props.getProperty("tester-factory-class");
+		if(factoryClassName==null) {
+			return Collections.singletonList(botAccount);
+		}
+		Class<?> factoryClass=Class.forName(factoryClassName);
+		MethodHandle factory=MethodHandles.publicLookup().unreflect(factoryClass.getMethod(props.getProperty("tester-factory-method")));
+		List<TesterAccount> accounts=new ArrayList<>();
+		for (JDA tester : (Collection<JDA>) factory.invoke()) {
+			tester.awaitReady();
+			accounts.add(new TesterAccount(tester, false));
+		}
+		if(accounts.isEmpty()) {
+			throw new IllegalStateException("the tester-factory-method did not return any JDA instance");
+		}
+		return Collections.unmodifiableList(accounts);
+	}
+	/**
+	 * marks the users of all tester accounts as users in the cache of the bot so the bot does not ignore their messages
+	 */
+	private static void markTesterAccounts() {
+		List<TesterAccount> accounts=testerAccounts;
+		if(accounts==null) {
+			return;
+		}
+		ShardManager shardManager=TestUtils.shardManager;
+		for (TesterAccount account : accounts) {
+			if(!account.isBot()) {
+				String id=account.getUser().getId();
+				User user=shardManager==null?jda.getUserById(id):shardManager.getUserById(id);
+				if(user instanceof UserImpl) {
+					((UserImpl)user).setBot(false);
+				}
+			}
+		}
+	}
+	/**
+	 * waits until all shards of a {@link ShardManager} have been started and are ready
+	 * @param shardManager the {@link ShardManager}
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	private static void awaitShards(ShardManager shardManager) throws InterruptedException {
+		//shards are started one after another
+		while(shardManager.getShardsQueued()>0) {
+			Thread.sleep(50);
+		}
+		for (JDA shard : shardManager.getShards()) {
+			shard.awaitReady();
+		}
+	}
+	/**
+	 * registers listeners on the {@link JDA} instance or on all shards
+	 * @param listeners the listeners
+	 */
+	private static void addEventListener(Object... listeners) {
+		ShardManager shardManager=TestUtils.shardManager;
+		if(shardManager==null) {
+			jda.addEventListener(listeners);
+		}else {
+			shardManager.addEventListener(listeners);
+		}
+	}
+	/**
+	 * registers the shutdown hook that cleans up after the tests<br>
+	 * Shutdown hooks that have been registered before are executed after the cleanup.
+	 * @throws ReflectiveOperationException if the registered shutdown hooks cannot be accessed
+	 */
+	private static void registerShutdownHook() throws ReflectiveOperationException {
+		Class<?> hooksClass=Class.forName("java.lang.ApplicationShutdownHooks");
+		java.lang.reflect.Field hooksField = hooksClass.getDeclaredField("hooks");
+		Map<Thread, Thread> hookMap;
+		try {
+			AccessController.doPrivileged((PrivilegedAction<Void>)()->{hooksField.setAccessible(true);return null;});
+			hookMap = (Map<Thread, Thread>) hooksField.get(null);
+		}catch(RuntimeException e) {
+			if("java.lang.reflect.InaccessibleObjectException".equals(e.getClass().getCanonicalName())){
+				hookMap=new HashMap<>();
+			}else {
+				throw e;
+			}
+		}
+		Collection<Thread> hooks = new HashSet<>(hookMap.values());
+		hookMap.clear();
+		Runtime.getRuntime().addShutdownHook(new Thread(()->{
+			tracker.deleteAll();
+			if(shardManager==null) {
 				jda.shutdown();
-				for (Thread hook : hooks) {
-					hook.start();
+			}else {
+				shardManager.shutdown();
+			}
+			List<TesterAccount> accounts=testerAccounts;
+			if(accounts!=null) {
+				for (TesterAccount account : accounts) {
+					if(!account.isBot()) {
+						account.getJDA().shutdown();
+					}
 				}
-			}));
-			((SelfUserImpl)jda.getSelfUser()).setBot(false);
-			jda.addEventListener(new ListenerAdapter() {
-				@Override
-				public void onReconnect(ReconnectedEvent event) {
-					((SelfUserImpl)jda.getSelfUser()).setBot(false);
+			}
+			String latencyReport=props.getProperty("latency-report");
+			if(latencyReport!=null) {
+				try {
+					latencies.export(Paths.get(latencyReport));
+				}catch(IOException e) {
+					e.printStackTrace();
 				}
-			});
-		} catch (IOException | ClassNotFoundException | NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException | NoSuchFieldException e) {
-			throw new RuntimeException(e);
+			}
+			try {
+				trace.close();
+			}catch(IOException e) {
+				e.printStackTrace();
+			}
+			if(recorder!=null) {
+				try {
+					recorder.close();
+				}catch(IOException e) {
+					e.printStackTrace();
+				}
+			}
+			try {
+				AsyncMessageLogger.shutdown();
+			}catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			OfflineDiscord.stop();
+			for (Thread hook : hooks) {
+				hook.start();
+			}
+		}));
+	}
+	private static long recordStartupPhase(String phase,long startNanos) {
+		long now=System.nanoTime();
+		startupTimings.put(phase, Duration.ofNanos(now-startNanos));
+		return now;
+	}
+	/**
+	 * waits until the {@link JDA} instance has been created and everything depending on it has been set up
+	 * @throws IllegalStateException if the {@link JDA} instance could not be created
+	 */
+	private static void awaitBootstrap() {
+		try {
+			bootstrap.join();
+		}catch(CompletionException e) {
+			throw new IllegalStateException("TestUtils could not be initialized", e.getCause());
 		}
 	}
 	private TestUtils() {
@@ -137,7 +427,7 @@ public final class TestUtils {
 	 * @see TestUtils#getMessage(TextChannel, String)
 	 */
 	public static Duration getTimeout() {
-		return timeout;
+		return getDefaultContext().getTimeout();
 	}
 	/**
 	 * sets the maximum timeout that is used when waiting for a message
@@ -152,26 +442,194 @@ public final class TestUtils {
 	 * @see TestUtils#getMessage(TextChannel, String)
 	 */
 	public static void setTimeout(Duration timeout) {
-		TestUtils.timeout = timeout;
+		getDefaultContext().setTimeout(timeout);
 	}
 	
-	private static boolean isMessageSentDuringTest(Message msg) {
-		return msg.getTimeCreated().isAfter(start);
+	static boolean isMessageSentDuringTest(Message msg) {
+		return msg.getIdLong()>startId;
+	}
+	static long getStartId() {
+		return startId;
+	}
+	/**
+	 * gets the lowest Snowflake ID of a message sent at a certain time
+	 * @param epochMillis the time in milliseconds since the unix epoch
+	 * @return the Snowflake ID
+	 */
+	static long getIdAt(long epochMillis) {
+		return (epochMillis-DISCORD_EPOCH)<<22;
+	}
+	static MessageWaiter getMessageWaiter() {
+		return waiter;
+	}
+	static MessageCache getMessageCache() {
+		return cache;
+	}
+	/**
+	 * gets a {@link TextChannel} from the {@link JDA} instance or from the shard it belongs to without waiting until the startup is done
+	 * @param id the Snowflake ID of the channel
+	 * @return the {@link TextChannel} or <code>null</code> if it is not known
+	 */
+	static TextChannel getTextChannelById(long id) {
+		ShardManager shardManager=TestUtils.shardManager;
+		return shardManager==null?jda.getTextChannelById(id):shardManager.getTextChannelById(id);
+	}
+	/**
+	 * gets the account of the bot itself that is used when no tester account is specified
+	 * @return the {@link TesterAccount} of the bot
+	 */
+	static TesterAccount getBotAccount() {
+		awaitBootstrap();
+		return botAccount;
+	}
+	/**
+	 * checks if a user is the bot itself or belongs to a tester account
+	 * @param user the {@link User}
+	 * @return <code>true</code> if messages of the user are sent by the testing system, else <code>false</code>
+	 */
+	static boolean isTesterAccount(User user) {
+		if(user.equals(jda.getSelfUser())) {
+			return true;
+		}
+		List<TesterAccount> accounts=testerAccounts;
+		if(accounts!=null) {
+			for (TesterAccount account : accounts) {
+				if(user.getIdLong()==account.getUser().getIdLong()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	static MessageTracker getMessageTracker() {
+		return tracker;
+	}
+	static InteractionRecorder getInteractionRecorder() {
+		return recorder;
+	}
+	static ScheduledExecutorService getTimeoutScheduler() {
+		return timeoutScheduler;
+	}
+	/**
+	 * gets the {@link TestContext} that is used by the static methods of {@link TestUtils}<br>
+	 * This context uses the testing channel.
+	 * @return the default {@link TestContext}
+	 * @see TestUtils#getTestingChannel()
+	 */
+	public static TestContext getDefaultContext() {
+		awaitBootstrap();
+		return defaultContext;
 	}
 	/**
-	 * gets the {@link JDA} instance returned by the <i>jda-factory-method</i>
+	 * gets the response latencies of the bot that have been recorded during the tests<br>
+	 * A latency is recorded when a command is sent and a message is awaited afterwards using the same {@link TestContext}.
+	 * For precise results, {@link TestUtils#expectReply(String, TextChannel, Predicate)} or event-driven awaiting should be used
+	 * because polling the message history delays the detection of responses.
+	 * @return the {@link LatencyStatistics}
+	 * @see TestUtils#setEventDrivenAwaiting(boolean)
+	 */
+	public static LatencyStatistics getLatencyStatistics() {
+		return latencies;
+	}
+	/**
+	 * gets the scheduler all requests to Discord of the testing system are executed with<br>
+	 * It can be used for monitoring the queued requests and the times they had to wait.
+	 * @return the {@link RestScheduler}
+	 */
+	public static RestScheduler getRestScheduler() {
+		return restScheduler;
+	}
+	/**
+	 * gets the spans of the work done by the testing system<br>
+	 * Tests can set their name using {@link InteractionTrace#setTestName(String)} so the spans can be assigned to them.
+	 * @return the {@link InteractionTrace}
+	 */
+	public static InteractionTrace getTrace() {
+		return trace;
+	}
+	/**
+	 * gets the {@link JDA} instance returned by the <i>jda-factory-method</i><br>
+	 * If the bot is sharded, this is the shard the testing channel belongs to.
 	 * @return the JDA Object
+	 * @see TestUtils#getShards()
 	 */
 	public static JDA getJDA() {
+		awaitBootstrap();
 		return jda;
 	}
+	/**
+	 * gets the accounts that can send messages and commands to the bot<br>
+	 * These are created by the <i>tester-factory-method</i>. If no <i>tester-factory-class</i> is specified, the only account is the bot itself.
+	 * @return an unmodifiable {@link List} of the tester accounts
+	 */
+	public static List<TesterAccount> getTesterAccounts() {
+		awaitBootstrap();
+		return testerAccounts;
+	}
+	/**
+	 * gets the next tester account in round-robin order<br>
+	 * This can be used for distributing commands over all tester accounts in order to simulate concurrent users.
+	 * @return the next {@link TesterAccount}
+	 * @see TestContext#sendCommand(TesterAccount, String, TextChannel)
+	 * @see TestContext#expectReply(TesterAccount, String, TextChannel, Predicate)
+	 */
+	public static TesterAccount nextTesterAccount() {
+		List<TesterAccount> accounts=getTesterAccounts();
+		return accounts.get(Math.floorMod(nextTesterAccount.getAndIncrement(), accounts.size()));
+	}
+	/**
+	 * checks if a {@link Message} is addressed to a tester account by mentioning its user
+	 * @param msg the {@link Message}
+	 * @param account the {@link TesterAccount}
+	 * @return <code>true</code> if the message mentions the user of the account, else <code>false</code>
+	 */
+	public static boolean isAddressedTo(Message msg,TesterAccount account) {
+		long userId=account.getUser().getIdLong();
+		for (User user : msg.getMentionedUsers()) {
+			if(user.getIdLong()==userId) {
+				return true;
+			}
+		}
+		return false;
+	}
+	/**
+	 * gets the {@link ShardManager} returned by the <i>jda-factory-method</i>
+	 * @return the {@link ShardManager} or <code>null</code> if the bot is not sharded
+	 */
+	public static ShardManager getShardManager() {
+		awaitBootstrap();
+		return shardManager;
+	}
+	/**
+	 * gets all shards of the bot
+	 * @return an unmodifiable {@link List} containing all shards or only the {@link JDA} instance if the bot is not sharded
+	 */
+	public static List<JDA> getShards() {
+		awaitBootstrap();
+		ShardManager shardManager=TestUtils.shardManager;
+		return shardManager==null?Collections.singletonList(jda):Collections.unmodifiableList(shardManager.getShards());
+	}
+	/**
+	 * gets the time needed by the phases of starting up {@link TestUtils}<br>
+	 * The phases are <i>properties</i>, <i>offline</i> (only when running offline), <i>factory</i>, <i>ready</i>, <i>setup</i>, <i>channels</i> and <i>testers</i>.
+	 * The <i>factory</i> phase is the time needed by the <i>jda-factory-method</i>, <i>ready</i> is the time until {@link JDA} (or all shards) finished loading afterwards.
+	 * This method does not wait until the startup is done.
+	 * @return an unmodifiable {@link Map} containing the durations of all completed phases in the order they have been executed
+	 */
+	public static Map<String, Duration> getStartupTimings() {
+		synchronized(startupTimings) {
+			return Collections.unmodifiableMap(new LinkedHashMap<>(startupTimings));
+		}
+	}
 	/**
 	 * gets the Discord {@link TextChannel} Object that belongs to a certain Snowflake
 	 * @param id the Snowflake ID
 	 * @return the TextChannel
 	 */
 	public static TextChannel getChannel(String id) {
-		return jda.getTextChannelById(id);
+		awaitBootstrap();
+		ShardManager shardManager=TestUtils.shardManager;
+		return shardManager==null?jda.getTextChannelById(id):shardManager.getTextChannelById(id);
 	}
 	/**
 	 * gets the Discord {@link Guild} Object that belongs to a certain Snowflake
@@ -179,7 +637,9 @@ public final class TestUtils {
 	 * @return the Guild
 	 */
 	public static Guild getGuild(String id) {
-		return jda.getGuildById(id);
+		awaitBootstrap();
+		ShardManager shardManager=TestUtils.shardManager;
+		return shardManager==null?jda.getGuildById(id):shardManager.getGuildById(id);
 	}
 	/**
 	 * gets the Discord {@link Role} Object that belongs to a certain Snowflake
@@ -187,7 +647,9 @@ public final class TestUtils {
 	 * @return the Role
 	 */
 	public static Role getRole(String id) {
-		return jda.getRoleById(id);
+		awaitBootstrap();
+		ShardManager shardManager=TestUtils.shardManager;
+		return shardManager==null?jda.getRoleById(id):shardManager.getRoleById(id);
 	}
 	/**
 	 * gets the Discord {@link User} Object that belongs to a certain Snowflake
@@ -195,39 +657,9 @@ public final class TestUtils {
 	 * @return the User
 	 */
 	public static User getUser(String id) {
-		return jda.getUserById(id);
-	}
-	private static void log(Message msg) {
-		StringBuilder sb=new StringBuilder("Testing message: ");
-		if(!"".equals(msg.getContentRaw())) {
-			if(!msg.getEmbeds().isEmpty()) {
-				sb.append('\"');
-			}
-			sb.append(msg.getContentRaw());
-			if(!msg.getEmbeds().isEmpty()) {
-				sb.append('\"');
-			}
-		}
-		for (MessageEmbed embed : msg.getEmbeds()) {
-			if(embed.getTitle()!=null) {
-				sb.append("title=\"");
-				sb.append(embed.getTitle());
-				sb.append('\"');
-			}
-			if(embed.getDescription()!=null) {
-				sb.append("desc=\"");
-				sb.append(embed.getDescription());
-				sb.append('\"');
-			}
-			for (Field field : embed.getFields()) {
-				sb.append("field{\"");
-				sb.append(field.getName());
-				sb.append("\"/\"");
-				sb.append(field.getValue());
-				sb.append("\"}");
-			}
-		}
-		logger.accept(sb.toString());
+		awaitBootstrap();
+		ShardManager shardManager=TestUtils.shardManager;
+		return shardManager==null?jda.getUserById(id):shardManager.getUserById(id);
 	}
 	/**
 	 * gets a {@link Message} that fulfills certain criteria has already been sent but was sent during the tests
@@ -236,21 +668,7 @@ public final class TestUtils {
 	 * @return the {@link Message} Object or null if it hasn't been sent
 	 */
 	public static Message getAlreadySentMessage(TextChannel tc,Predicate<Message> tester) {
-		for (Message msg : tc.getHistory().retrievePast(numOfMessagesToCheck).complete()) {
-			if(!isMessageSentDuringTest(msg)) {
-				return null;
-			}
-			if(logger!=null) {
-				log(msg);
-			}
-			if (tester.test(msg)) {
-				return msg;
-			}
-		}
-		return null;
-	}
-	private static final class Wrapper<T>{
-		T data;
+		return getDefaultContext().getAlreadySentMessage(tc, tester);
 	}
 	/**
 	 * gets a {@link Message} in a {@link TextChannel} that contains a String that may not be already sent(and received) but was/will be sent during the tests
@@ -283,13 +701,75 @@ public final class TestUtils {
 	 * @see TestUtils#setTimeout(Duration)
 	 */
 	public static Message getMessage(TextChannel tc,Predicate<Message> tester) {
-		Wrapper<Message> msg=new Wrapper<>();
-		try{
-			Awaitility.await().atMost(timeout).until(()->(msg.data=getAlreadySentMessage(tc,tester))!=null);
-			return msg.data;
-		}catch(ConditionTimeoutException e) {//timeout
-			return null;
-		}
+		return getDefaultContext().getMessage(tc, tester);
+	}
+	/**
+	 * asynchronously gets a {@link Message} in a {@link TextChannel} that fulfills certain criteria that may not be already sent(and received) but was/will be sent during the tests<br>
+	 * The message history is retrieved once in order to find messages that have been sent before. Newer messages are tested as soon as they are received.
+	 * @param tc the {@link TextChannel}
+	 * @param tester a function that returns <code>true</code> if a message is the correct message
+	 * @return a {@link CompletableFuture} that is completed with the {@link Message} or with <code>null</code> if the message was not found until the time expires
+	 * @see TestUtils#getTimeout()
+	 * @see TestUtils#setTimeout(Duration)
+	 */
+	public static CompletableFuture<Message> getMessageAsync(TextChannel tc,Predicate<Message> tester) {
+		return getDefaultContext().getMessageAsync(tc, tester);
+	}
+	/**
+	 * asynchronously gets a {@link Message} in the testing channel that fulfills certain criteria that may not be already sent(and received) but was/will be sent during the tests
+	 * @param tester a function that returns <code>true</code> if a message is the correct message
+	 * @return a {@link CompletableFuture} that is completed with the {@link Message} or with <code>null</code> if the message was not found until the time expires
+	 * @see TestUtils#getTestingChannel()
+	 * @see TestUtils#getTimeout()
+	 * @see TestUtils#setTimeout(Duration)
+	 */
+	public static CompletableFuture<Message> getMessageAsync(Predicate<Message> tester) {
+		return getMessageAsync(getTestingChannel(), tester);
+	}
+	/**
+	 * gets several messages in a {@link TextChannel} that fulfill certain criteria and may not be already sent(and received) but were/will be sent during the tests<br>
+	 * All criteria are tested against every retrieved or received message in a single pass, so the message history is only retrieved once per poll.
+	 * Every message is used for at most one criteria: the first one in the list that it fulfills and no message has been found for yet.
+	 * @param tc the {@link TextChannel}
+	 * @param testers functions that return <code>true</code> if a message is the correct message
+	 * @return the {@link AwaitResult} containing the messages in the order of the criteria, criteria no message has been found for until the time expires are reported as timed out
+	 * @see TestUtils#getTimeout()
+	 * @see TestUtils#setTimeout(Duration)
+	 */
+	public static AwaitResult awaitAll(TextChannel tc,List<Predicate<Message>> testers) {
+		return getDefaultContext().awaitAll(tc, testers);
+	}
+	/**
+	 * gets several messages in the testing channel that fulfill certain criteria and may not be already sent(and received) but were/will be sent during the tests
+	 * @param testers functions that return <code>true</code> if a message is the correct message
+	 * @return the {@link AwaitResult} containing the messages in the order of the criteria
+	 * @see TestUtils#awaitAll(TextChannel, List)
+	 * @see TestUtils#getTestingChannel()
+	 */
+	public static AwaitResult awaitAll(List<Predicate<Message>> testers) {
+		return awaitAll(getTestingChannel(), testers);
+	}
+	/**
+	 * gets the first {@link Message} in a {@link TextChannel} that fulfills any of several criteria and may not be already sent(and received) but was/will be sent during the tests<br>
+	 * All criteria are tested against every retrieved or received message in a single pass.
+	 * @param tc the {@link TextChannel}
+	 * @param testers functions that return <code>true</code> if a message is the correct message
+	 * @return the {@link AwaitResult} containing the message at the index of the first criteria it fulfills, the other criteria are only reported as timed out if no message has been found
+	 * @see TestUtils#getTimeout()
+	 * @see TestUtils#setTimeout(Duration)
+	 */
+	public static AwaitResult awaitAny(TextChannel tc,List<Predicate<Message>> testers) {
+		return getDefaultContext().awaitAny(tc, testers);
+	}
+	/**
+	 * gets the first {@link Message} in the testing channel that fulfills any of several criteria and may not be already sent(and received) but was/will be sent during the tests
+	 * @param testers functions that return <code>true</code> if a message is the correct message
+	 * @return the {@link AwaitResult} containing the message at the index of the first criteria it fulfills
+	 * @see TestUtils#awaitAny(TextChannel, List)
+	 * @see TestUtils#getTestingChannel()
+	 */
+	public static AwaitResult awaitAny(List<Predicate<Message>> testers) {
+		return awaitAny(getTestingChannel(), testers);
 	}
 	/**
 	 * gets a {@link Message} in the testing channel that fulfills certain criteria that may not be already sent(and received) but was/will be sent during the tests
@@ -348,41 +828,153 @@ public final class TestUtils {
 	 * sends a message in a {@link TextChannel} and waits until it has been sent
 	 * @param message the content of the message
 	 * @param tc the {@link TextChannel} where the message should be sent
+	 * @return the sent {@link Message}
 	 */
-	public static void sendMessage(String message,TextChannel tc) {
-		Message msg=tc.sendMessage(message).complete();
-		if(numOfMessagesForAutoDelete>0) {
-			toDelete.offer(msg);
-			if(numOfMessagesForAutoDelete<=toDelete.size()) {
-				toDelete.poll().delete().queue();
-			}
-		}
+	public static Message sendMessage(String message,TextChannel tc) {
+		return getDefaultContext().sendMessage(message, tc);
+	}
+	/**
+	 * sends a message in a {@link TextChannel} without waiting until it has been sent
+	 * @param message the content of the message
+	 * @param tc the {@link TextChannel} where the message should be sent
+	 * @return a {@link CompletableFuture} that is completed with the sent {@link Message}
+	 */
+	public static CompletableFuture<Message> sendMessageAsync(String message,TextChannel tc) {
+		return getDefaultContext().sendMessageAsync(message, tc);
+	}
+	/**
+	 * sends a message in the testing channel without waiting until it has been sent
+	 * @param message the content of the message
+	 * @return a {@link CompletableFuture} that is completed with the sent {@link Message}
+	 * @see TestUtils#getTestingChannel()
+	 */
+	public static CompletableFuture<Message> sendMessageAsync(String message) {
+		return sendMessageAsync(message, getTestingChannel());
 	}
 	/**
 	 * sends a message in the testing channel and waits until it has been sent
 	 * @param message the content of the message
+	 * @return the sent {@link Message}
 	 * @see TestUtils#getTestingChannel()
 	 */
-	public static void sendMessage(String message) {
-		sendMessage(message, getTestingChannel());
+	public static Message sendMessage(String message) {
+		return sendMessage(message, getTestingChannel());
 	}
 	/**
 	 * sends a command for the bot to test in the testing channel<br>
-	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>
+	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>.
+	 * The time until the first response is awaited is recorded in the {@link TestUtils#getLatencyStatistics() latency statistics}.
+	 * @param content the content that should be added to the message after the prefix
+	 * @return the sent command, can be used for awaiting replies using {@link TestUtils#getReply(Message, Predicate)}
+	 * @see TestUtils#getTestingChannel()
+	 */
+	public static Message sendCommand(String content) {
+		return getDefaultContext().sendCommand(content);
+	}
+	/**
+	 * sends a command for the bot to test in the testing channel as a specific tester account
+	 * @param account the {@link TesterAccount} that should send the command
 	 * @param content the content that should be added to the message after the prefix
+	 * @return the sent command, can be used for awaiting replies using {@link TestUtils#getReply(Message, Predicate)}
+	 * @see TestUtils#nextTesterAccount()
 	 * @see TestUtils#getTestingChannel()
 	 */
-	public static void sendCommand(String content) {
-		sendMessage(getPrefix()+content);
+	public static Message sendCommand(TesterAccount account,String content) {
+		return getDefaultContext().sendCommand(account, content);
 	}
 	/**
 	 * sends a command for the bot to test in a {@link TextChannel}<br>
-	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>
+	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>.
+	 * The time until the first response is awaited is recorded in the {@link TestUtils#getLatencyStatistics() latency statistics}.
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tc the {@link TextChannel} where the command should be sent
+	 * @return the sent command, can be used for awaiting replies using {@link TestUtils#getReply(Message, Predicate)}
+	 */
+	public static Message sendCommand(String content,TextChannel tc) {
+		return getDefaultContext().sendCommand(content, tc);
+	}
+	/**
+	 * gets a reply of the bot to a command that may not be already sent(and received) but was/will be sent during the tests<br>
+	 * Only messages of the bot that have been sent after the command are accepted. Messages sent by the tester are ignored.
+	 * Every message is only accepted as reply to one command, so concurrent commands in the same channel do not share replies.
+	 * @param command the command as returned by {@link TestUtils#sendCommand(String, TextChannel)}
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return the reply or <code>null</code> if no reply was found until the time expires
+	 * @see TestUtils#getTimeout()
+	 * @see TestUtils#setTimeout(Duration)
+	 */
+	public static Message getReply(Message command,Predicate<Message> tester) {
+		return getDefaultContext().getReply(command, tester);
+	}
+	/**
+	 * asynchronously gets a reply of the bot to a command that may not be already sent(and received) but was/will be sent during the tests
+	 * @param command the command as returned by {@link TestUtils#sendCommand(String, TextChannel)} or {@link TestUtils#sendCommandAsync(String, TextChannel)}
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return a {@link CompletableFuture} that is completed with the reply or with <code>null</code> if no reply was found until the time expires
+	 * @see TestUtils#getReply(Message, Predicate)
+	 */
+	public static CompletableFuture<Message> getReplyAsync(Message command,Predicate<Message> tester) {
+		return getDefaultContext().getReplyAsync(command, tester);
+	}
+	/**
+	 * sends a command for the bot to test in the testing channel without waiting until it has been sent<br>
+	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>.
+	 * The time until the first response is awaited is recorded in the {@link TestUtils#getLatencyStatistics() latency statistics}.
+	 * @param content the content that should be added to the message after the prefix
+	 * @return a {@link CompletableFuture} that is completed with the sent {@link Message}
+	 * @see TestUtils#getTestingChannel()
+	 */
+	public static CompletableFuture<Message> sendCommandAsync(String content) {
+		return sendCommandAsync(content, getTestingChannel());
+	}
+	/**
+	 * sends a command for the bot to test in a {@link TextChannel} without waiting until it has been sent<br>
+	 * This sends a message beginning with the prefix specified in the <code>jda-tests.properties</code>.
+	 * The time until the first response is awaited is recorded in the {@link TestUtils#getLatencyStatistics() latency statistics}.
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tc the {@link TextChannel} where the command should be sent
+	 * @return a {@link CompletableFuture} that is completed with the sent {@link Message}
+	 */
+	public static CompletableFuture<Message> sendCommandAsync(String content,TextChannel tc) {
+		return getDefaultContext().sendCommandAsync(content, tc);
+	}
+	/**
+	 * sends a command for the bot to test in a {@link TextChannel} and asynchronously waits for a reply<br>
+	 * Only messages that are received after the command has been sent are checked, the message history is not retrieved.
+	 * Only messages of the bot are accepted, messages sent by the tester (including the command itself) are ignored.
+	 * Every message is only accepted as reply to one command, so concurrent commands in the same channel do not share replies.
 	 * @param content the content that should be added to the message after the prefix
 	 * @param tc the {@link TextChannel} where the command should be sent
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return a {@link CompletableFuture} that is completed with the reply or with <code>null</code> if no reply was found until the time expires
+	 * @see TestUtils#getTimeout()
+	 * @see TestUtils#setTimeout(Duration)
+	 */
+	public static CompletableFuture<Message> expectReply(String content,TextChannel tc,Predicate<Message> tester) {
+		return getDefaultContext().expectReply(content, tc, tester);
+	}
+	/**
+	 * sends a command for the bot to test in the testing channel and asynchronously waits for a reply
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return a {@link CompletableFuture} that is completed with the reply or with <code>null</code> if no reply was found until the time expires
+	 * @see TestUtils#expectReply(String, TextChannel, Predicate)
+	 * @see TestUtils#getTestingChannel()
+	 */
+	public static CompletableFuture<Message> expectReply(String content,Predicate<Message> tester) {
+		return expectReply(content, getTestingChannel(), tester);
+	}
+	/**
+	 * sends a command for the bot to test in the testing channel as a specific tester account and asynchronously waits for a reply
+	 * @param account the {@link TesterAccount} that should send the command
+	 * @param content the content that should be added to the message after the prefix
+	 * @param tester a function that returns <code>true</code> if a message is the expected reply
+	 * @return a {@link CompletableFuture} that is completed with the reply or with <code>null</code> if no reply was found until the time expires
+	 * @see TestUtils#nextTesterAccount()
+	 * @see TestUtils#isAddressedTo(Message, TesterAccount)
 	 */
-	public static void sendCommand(String content,TextChannel tc) {
-		sendMessage(getPrefix()+content,tc);
+	public static CompletableFuture<Message> expectReply(TesterAccount account,String content,Predicate<Message> tester) {
+		return getDefaultContext().expectReply(account, content, tester);
 	}
 	/**
 	 * gets the testing channel specified in the <code>jda-tests.properties</code><br>
@@ -390,7 +982,53 @@ public final class TestUtils {
 	 * @return the testing channel as {@link TextChannel}
 	 */
 	public static TextChannel getTestingChannel() {
-		return getChannel(props.getProperty("testing-channel"));
+		awaitBootstrap();
+		return testingChannel;
+	}
+	/**
+	 * gets all testing channels that can be leased<br>
+	 * These channels are specified in the <code>jda-tests.properties</code> using the key <code>testing-channels</code>.
+	 * If this key is not present, only the testing channel can be leased.
+	 * @return an unmodifiable {@link List} of the channels
+	 * @see TestUtils#leaseChannel()
+	 */
+	public static List<TextChannel> getTestingChannels() {
+		awaitBootstrap();
+		return testingChannels;
+	}
+	/**
+	 * leases one of the testing channels exclusively for one test and waits until a channel is available<br>
+	 * Tests using different leases do not interfere with each other and can run concurrently.
+	 * The lease needs to be closed when the test is done.
+	 * @return the {@link ChannelLease} or <code>null</code> if the current thread has been interrupted while waiting
+	 * @see TestUtils#getTestingChannels()
+	 */
+	public static ChannelLease leaseChannel() {
+		awaitBootstrap();
+		try {
+			return new ChannelLease(channelPool.take(), channelPool);
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+	/**
+	 * leases one of the testing channels exclusively for one test and waits until a channel is available or the time expires<br>
+	 * Tests using different leases do not interfere with each other and can run concurrently.
+	 * The lease needs to be closed when the test is done.
+	 * @param timeout the maximum time to wait for a channel
+	 * @return the {@link ChannelLease} or <code>null</code> if no channel was available until the time expires
+	 * @see TestUtils#getTestingChannels()
+	 */
+	public static ChannelLease leaseChannel(Duration timeout) {
+		awaitBootstrap();
+		try {
+			TextChannel channel=channelPool.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+			return channel==null?null:new ChannelLease(channel, channelPool);
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
 	}
 	/**
 	 * gets the prefix specified in the <code>jda-tests.properties</code><br>
@@ -398,7 +1036,7 @@ public final class TestUtils {
 	 * @return the prefix
 	 */
 	public static String getPrefix() {
-		return props.getProperty("testing-prefix");
+		return prefix;
 	}
 	/**
 	 * tests if a {@link Message} has an Embed that fulfills a certain criteria
@@ -498,7 +1136,7 @@ public final class TestUtils {
 	 * @see TestUtils#getMessage(Member)
 	 */
 	public static void setNumOfMessagesToCheck(int numOfMessagesToCheck) {
-		TestUtils.numOfMessagesToCheck = numOfMessagesToCheck;
+		getDefaultContext().setNumOfMessagesToCheck(numOfMessagesToCheck);
 	}
 	/**
 	 * gets the number of messages to test when searching for a message
@@ -511,11 +1149,12 @@ public final class TestUtils {
 	 * @see TestUtils#getMessage(Member)
 	 */
 	public static int getNumOfMessagesToCheck() {
-		return numOfMessagesToCheck;
+		return getDefaultContext().getNumOfMessagesToCheck();
 	}
 	/**
 	 * gets the number of messages that need to be sent until the first message is deleted<br>
 	 * If n messages are sent by using {@link TestUtils}, the first message will be automatically deleted.
+	 * Messages are deleted in bulk, so up to n messages (at most 100) are collected per channel before they are deleted together.
 	 * @return the number of messages for deletion (n)
 	 * @see TestUtils#sendMessage(String)
 	 * @see TestUtils#sendMessage(String, TextChannel)
@@ -523,11 +1162,12 @@ public final class TestUtils {
 	 * @see TestUtils#sendCommand(String, TextChannel)
 	 */
 	public static int getNumOfMessagesForAutoDelete() {
-		return numOfMessagesForAutoDelete;
+		return getDefaultContext().getNumOfMessagesForAutoDelete();
 	}
 	/**
 	 * sets the number of messages that need to be sent until the first message is deleted<br>
 	 * If n messages are sent by using {@link TestUtils}, the first message will be automatically deleted.
+	 * Messages are deleted in bulk, so up to n messages (at most 100) are collected per channel before they are deleted together.
 	 * @param numOfMessagesForAutoDelete the number of messages for deletion (n)
 	 * @see TestUtils#sendMessage(String)
 	 * @see TestUtils#sendMessage(String, TextChannel)
@@ -535,14 +1175,58 @@ public final class TestUtils {
 	 * @see TestUtils#sendCommand(String, TextChannel)
 	 */
 	public static void setNumOfMessagesForAutoDelete(int numOfMessagesForAutoDelete) {
-		TestUtils.numOfMessagesForAutoDelete = numOfMessagesForAutoDelete;
+		getDefaultContext().setNumOfMessagesForAutoDelete(numOfMessagesForAutoDelete);
+	}
+	/**
+	 * gets the maximum number of messages per channel that are kept in the message cache
+	 * @return the maximum number of cached messages per channel
+	 * @see TestUtils#setMessageCacheSize(int)
+	 */
+	public static int getMessageCacheSize() {
+		return cache.getCapacity();
+	}
+	/**
+	 * sets the maximum number of messages per channel that are kept in the message cache<br>
+	 * All messages sent during the tests that are retrieved while awaiting messages are cached, so every message is only retrieved once even if multiple awaits check it.
+	 * If a channel contains more messages, the oldest cached messages are removed and cannot be found by awaits that have not checked them yet.
+	 * @param messageCacheSize the maximum number of cached messages per channel
+	 */
+	public static void setMessageCacheSize(int messageCacheSize) {
+		cache.setCapacity(messageCacheSize);
 	}
 	/**
 	 * sets the Logger where all messages that are tested will be logged to
 	 * @param logger a logger that accepts the logged String
 	 */
 	public static void setLogger(Consumer<String> logger) {
-		TestUtils.logger = logger;
+		getDefaultContext().setLogger(logger);
+	}
+	/**
+	 * sets the {@link MessageLogger} that receives all messages that are tested<br>
+	 * Every message is logged at most once per await. Messages are only rendered if the logger requests it.
+	 * @param logger the {@link MessageLogger} or <code>null</code> if messages should not be logged
+	 * @see MessageLogger#async(MessageLogger)
+	 */
+	public static void setMessageLogger(MessageLogger logger) {
+		getDefaultContext().setMessageLogger(logger);
+	}
+	/**
+	 * checks if messages are awaited using gateway events instead of polling the message history
+	 * @return <code>true</code> if received messages are used for awaiting, else <code>false</code>
+	 * @see TestUtils#setEventDrivenAwaiting(boolean)
+	 */
+	public static boolean isEventDrivenAwaiting() {
+		return getDefaultContext().isEventDrivenAwaiting();
+	}
+	/**
+	 * sets whether messages should be awaited using gateway events instead of polling the message history<br>
+	 * If enabled, the message history is only retrieved once per await in order to find messages that have been sent before the await started.
+	 * All other messages are tested as soon as they are received.
+	 * @param eventDrivenAwaiting <code>true</code> if received messages should be used for awaiting, else <code>false</code>
+	 * @see TestUtils#getMessage(TextChannel, Predicate)
+	 */
+	public static void setEventDrivenAwaiting(boolean eventDrivenAwaiting) {
+		getDefaultContext().setEventDrivenAwaiting(eventDrivenAwaiting);
 	}
 	
 }
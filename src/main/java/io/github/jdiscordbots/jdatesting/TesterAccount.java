@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: TesterAccount.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.SelfUser;
+import net.dv8tion.jda.api.entities.TextChannel;
+
+/**
+ * an account that sends messages and commands to the bot to test<br>
+ * If the <code>jda-tests.properties</code> do not contain a <i>tester-factory-class</i>, the only account is the bot itself.
+ * @see TestUtils#getTesterAccounts()
+ * @see TestUtils#nextTesterAccount()
+ */
+public final class TesterAccount {
+
+	private final JDA jda;
+	private final boolean bot;
+
+	/**
+	 * creates a tester account
+	 * @param jda the {@link JDA} instance of the account
+	 * @param bot <code>true</code> if the account is the bot to test, else <code>false</code>
+	 */
+	TesterAccount(JDA jda,boolean bot) {
+		this.jda=jda;
+		this.bot=bot;
+	}
+	/**
+	 * gets the {@link JDA} instance the account uses for sending messages
+	 * @return the {@link JDA} instance
+	 */
+	public JDA getJDA() {
+		return jda;
+	}
+	/**
+	 * gets the user of the account
+	 * @return the {@link SelfUser} of the {@link JDA} instance
+	 */
+	public SelfUser getUser() {
+		return jda.getSelfUser();
+	}
+	/**
+	 * checks if the account is the bot to test
+	 * @return <code>true</code> if messages are sent by the bot itself, else <code>false</code>
+	 */
+	public boolean isBot() {
+		return bot;
+	}
+	/**
+	 * gets the {@link TextChannel} Object of the account for a channel
+	 * @param tc the {@link TextChannel} of any account
+	 * @return the {@link TextChannel} that can be used for sending messages with this account
+	 * @throws IllegalArgumentException if the account cannot access the channel
+	 */
+	TextChannel resolve(TextChannel tc) {
+		if(bot||tc.getJDA()==jda) {
+			return tc;
+		}
+		TextChannel own=jda.getTextChannelById(tc.getIdLong());
+		if(own==null) {
+			throw new IllegalArgumentException("the tester account "+getUser().getId()+" cannot access the channel "+tc.getId());
+		}
+		return own;
+	}
+	@Override
+	public String toString() {
+		return "TesterAccount["+getUser().getId()+"]";
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: LatencyHistogramTest.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+/**
+ * tests the bucket indexing and the percentiles of {@link LatencyHistogram}
+ */
+public class LatencyHistogramTest {
+
+	private static final long MAX_VALUE=(1L<<43)-1;
+
+	@Test
+	public void testEmptyHistogram() {
+		LatencyHistogram histogram=new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(Duration.ZERO, histogram.getMax());
+		assertEquals(Duration.ZERO, histogram.getMean());
+		assertEquals(Duration.ZERO, histogram.getP99());
+	}
+	@Test
+	public void testSmallValuesAreExact() {
+		LatencyHistogram histogram=new LatencyHistogram();
+		for (long i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(50, histogram.getPercentileNanos(50));
+		assertEquals(95, histogram.getPercentileNanos(95));
+		assertEquals(99, histogram.getPercentileNanos(99));
+		assertEquals(100, histogram.getPercentileNanos(100));
+		assertEquals(1, histogram.getPercentileNanos(0));
+		assertEquals(50, histogram.getMeanNanos());
+		assertEquals(100, histogram.getMaxNanos());
+	}
+	@Test
+	public void testBucketBoundaries() {
+		//values up to 255 have their own bucket, 256 and 257 share one
+		for (long value : new long[] {127, 128, 255}) {
+			assertEquals(value, getBucketMax(value));
+		}
+		assertEquals(257, getBucketMax(256));
+		assertEquals(257, getBucketMax(257));
+		assertEquals(259, getBucketMax(258));
+		//1000 to 1003 are counted in the same bucket
+		assertEquals(1003, getBucketMax(1000));
+		assertEquals(1003, getBucketMax(1003));
+		assertEquals(1007, getBucketMax(1004));
+	}
+	@Test
+	public void testRelativeError() {
+		for (long value=1; value < MAX_VALUE/2; value=value*3+7) {
+			long bucketMax=getBucketMax(value);
+			assertTrue(value+" is counted as "+bucketMax, bucketMax>=value&&bucketMax-value<=value/128);
+		}
+	}
+	@Test
+	public void testPercentileDoesNotExceedMax() {
+		LatencyHistogram histogram=new LatencyHistogram();
+		histogram.record(1000);
+		assertEquals(1000, histogram.getPercentileNanos(100));
+		assertEquals(Duration.ofNanos(1000), histogram.getMax());
+	}
+	@Test
+	public void testValuesAreClamped() {
+		LatencyHistogram histogram=new LatencyHistogram();
+		histogram.record(-5);
+		assertEquals(0, histogram.getMaxNanos());
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(MAX_VALUE, histogram.getMaxNanos());
+		assertEquals(MAX_VALUE, histogram.getPercentileNanos(100));
+		assertEquals(0, histogram.getPercentileNanos(50));
+	}
+	@Test
+	public void testInvalidPercentile() {
+		LatencyHistogram histogram=new LatencyHistogram();
+		for (double percentile : new double[] {-1, 100.5}) {
+			try {
+				histogram.getPercentile(percentile);
+				fail("percentile "+percentile+" has been accepted");
+			}catch(IllegalArgumentException e) {
+				//expected
+			}
+		}
+	}
+	/**
+	 * gets the highest value that is counted in the same bucket as a value
+	 * @param value the value
+	 * @return the highest value of the bucket
+	 */
+	private static long getBucketMax(long value) {
+		LatencyHistogram histogram=new LatencyHistogram();
+		histogram.record(value);
+		//the percentile is limited to the highest recorded value
+		histogram.record(MAX_VALUE);
+		return histogram.getPercentileNanos(50);
+	}
+}
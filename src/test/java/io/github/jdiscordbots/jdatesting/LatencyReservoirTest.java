@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: LatencyReservoirTest.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * tests the reservoir sampling and the Mann-Whitney U test of {@link LatencyReservoir}<br>
+ * The expected p-values have been calculated using the normal approximation with tie and continuity correction.
+ */
+public class LatencyReservoirTest {
+
+	private static final double P_DELTA=1e-6;
+
+	private static LatencyReservoir of(long... latencies) {
+		LatencyReservoir reservoir=new LatencyReservoir(latencies.length);
+		for (long latency : latencies) {
+			reservoir.record(latency);
+		}
+		return reservoir;
+	}
+	private static long[] range(long from,long to,long step) {
+		long[] values=new long[(int) ((to-from)/step+1)];
+		for (int i = 0; i < values.length; i++) {
+			values[i]=from+i*step;
+		}
+		return values;
+	}
+	private static long[] repeat(long value1,int count1,long value2,int count2) {
+		long[] values=new long[count1+count2];
+		for (int i = 0; i < values.length; i++) {
+			values[i]=i<count1?value1:value2;
+		}
+		return values;
+	}
+	@Test
+	public void testSeparatedSamples() {
+		LatencyReservoir fast=of(range(1, 20, 1));
+		LatencyReservoir slow=of(range(21, 40, 1));
+		assertEquals(0, fast.getU(slow), 0);
+		assertEquals(400, slow.getU(fast), 0);
+		assertEquals(6.795615e-8, fast.compare(slow), P_DELTA);
+		assertEquals(fast.compare(slow), slow.compare(fast), 0);
+	}
+	@Test
+	public void testInterleavedSamples() {
+		LatencyReservoir even=of(range(2, 40, 2));
+		LatencyReservoir odd=of(range(1, 39, 2));
+		assertEquals(210, even.getU(odd), 0);
+		assertEquals(0.7971974, even.compare(odd), P_DELTA);
+	}
+	@Test
+	public void testTies() {
+		LatencyReservoir fast=of(repeat(10, 10, 20, 10));
+		LatencyReservoir slow=of(repeat(20, 10, 30, 10));
+		assertEquals(50, fast.getU(slow), 0);
+		assertEquals(1.0767327e-5, fast.compare(slow), P_DELTA);
+	}
+	@Test
+	public void testOverlappingSamples() {
+		LatencyReservoir fast=of(12, 15, 11, 19, 14, 13, 17, 16, 18, 20, 22, 21, 13, 14, 15, 16, 17, 19, 23, 25);
+		LatencyReservoir slow=of(14, 18, 20, 24, 26, 21, 19, 22, 27, 28, 25, 23, 24, 29, 30, 21, 22, 26, 27, 31);
+		assertEquals(49, fast.getU(slow), 0);
+		assertEquals(351, slow.getU(fast), 0);
+		assertEquals(4.5776893e-5, fast.compare(slow), P_DELTA);
+	}
+	@Test
+	public void testIdenticalSamples() {
+		assertEquals(1, of(repeat(5, 25, 5, 0)).compare(of(repeat(5, 25, 5, 0))), 0);
+		assertEquals(1, of(range(1, 30, 1)).compare(of(range(1, 30, 1))), P_DELTA);
+	}
+	@Test
+	public void testEmptySample() {
+		assertEquals(1, new LatencyReservoir(10).compare(of(range(1, 30, 1))), 0);
+	}
+	@Test
+	public void testReservoirIsBounded() {
+		LatencyReservoir reservoir=new LatencyReservoir(100);
+		for (long i = 0; i < 100_000; i++) {
+			reservoir.record(i);
+		}
+		assertEquals(100, reservoir.size());
+		//the median of a uniform sample of 0..99999 is close to 50000
+		long median=reservoir.getMedian();
+		assertTrue("median "+median, median>20_000&&median<80_000);
+	}
+	@Test
+	public void testMedian() {
+		assertEquals(0, new LatencyReservoir(10).getMedian());
+		assertEquals(3, of(5, 1, 3, 2, 4).getMedian());
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageMatcherTest.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.User;
+
+/**
+ * tests the criteria and the mismatch descriptions of {@link MessageMatcher} using synthetic messages
+ */
+public class MessageMatcherTest {
+
+	private static final User ALICE=createUser(1);
+	private static final User BOB=createUser(2);
+
+	private static User createUser(long id) {
+		return (User) Proxy.newProxyInstance(User.class.getClassLoader(), new Class<?>[] {User.class}, (proxy,method,args)->{
+			switch(method.getName()) {
+			case "getIdLong":
+				return id;
+			case "getId":
+				return Long.toUnsignedString(id);
+			case "hashCode":
+				return Long.hashCode(id);
+			case "equals":
+				return proxy==args[0];
+			case "toString":
+				return "U:"+id;
+			default:
+				throw new UnsupportedOperationException(method.getName()+" is not supported by synthetic users");
+			}
+		});
+	}
+	private static Message createMessage(long id,User author,String content,MessageEmbed... embeds) {
+		List<MessageEmbed> embedList=Collections.unmodifiableList(Arrays.asList(embeds));
+		return (Message) Proxy.newProxyInstance(Message.class.getClassLoader(), new Class<?>[] {Message.class}, (proxy,method,args)->{
+			switch(method.getName()) {
+			case "getIdLong":
+				return id;
+			case "getId":
+				return Long.toUnsignedString(id);
+			case "getContentRaw":
+				return content;
+			case "getEmbeds":
+				return embedList;
+			case "getAuthor":
+				return author;
+			case "hashCode":
+				return Long.hashCode(id);
+			case "equals":
+				return proxy==args[0];
+			case "toString":
+				return "M:"+author+":"+content+"("+id+")";
+			default:
+				throw new UnsupportedOperationException(method.getName()+" is not supported by synthetic messages");
+			}
+		});
+	}
+	private static Message createMessage(User author,String content,MessageEmbed... embeds) {
+		return createMessage(1, author, content, embeds);
+	}
+	private static MessageEmbed createEmbed(String title,String description,String... fields) {
+		EmbedBuilder builder=new EmbedBuilder().setTitle(title).setDescription(description);
+		for (int i = 0; i < fields.length; i+=2) {
+			builder.addField(fields[i], fields[i+1], false);
+		}
+		return builder.build();
+	}
+	@Test
+	public void testContent() {
+		MessageMatcher matcher=new MessageMatcherBuilder().setContent("pong").build();
+		assertTrue(matcher.test(createMessage(ALICE, "pong")));
+		assertFalse(matcher.test(createMessage(ALICE, "ping")));
+		assertFalse(matcher.test(createMessage(ALICE, "pong!")));
+		assertEquals("", matcher.describeMismatch(createMessage(ALICE, "pong")));
+		assertEquals("content: expected \"pong\" but was \"ping\"\n", matcher.describeMismatch(createMessage(ALICE, "ping")));
+	}
+	@Test
+	public void testContentPattern() {
+		MessageMatcher matcher=new MessageMatcherBuilder().setContentPattern("p[io]ng \\d+").build();
+		assertTrue(matcher.test(createMessage(ALICE, "ping 42")));
+		assertTrue(matcher.test(createMessage(ALICE, "pong 7")));
+		//the whole content needs to match
+		assertFalse(matcher.test(createMessage(ALICE, "ping 42!")));
+		assertEquals("content: expected to match p[io]ng \\d+ but was \"pang 1\"\n", matcher.describeMismatch(createMessage(ALICE, "pang 1")));
+	}
+	@Test
+	public void testContentReplacesPattern() {
+		MessageMatcher matcher=new MessageMatcherBuilder().setContentPattern("p.ng").setContent("pong").build();
+		assertTrue(matcher.test(createMessage(ALICE, "pong")));
+		assertFalse(matcher.test(createMessage(ALICE, "ping")));
+	}
+	@Test
+	public void testAuthor() {
+		MessageMatcher matcher=new MessageMatcherBuilder().setAuthor(BOB).setContent("pong").build();
+		assertTrue(matcher.test(createMessage(BOB, "pong")));
+		assertFalse(matcher.test(createMessage(ALICE, "pong")));
+		assertEquals("author: expected 2 but was 1\ncontent: expected \"pong\" but was \"ping\"\n", matcher.describeMismatch(createMessage(ALICE, "ping")));
+		assertTrue(new MessageMatcherBuilder().setAuthor(null).build().test(createMessage(ALICE, "anything")));
+	}
+	@Test
+	public void testEmbed() {
+		MessageMatcher matcher=new MessageMatcherBuilder()
+				.setEmbedTitle("Help")
+				.setEmbedDescription("all commands")
+				.addEmbedField("ping", "Pong!")
+				.addEmbedField("help", "shows this")
+				.build();
+		assertTrue(matcher.test(createMessage(ALICE, "", createEmbed("Help", "all commands", "help", "shows this", "ping", "Pong!", "other", "value"))));
+		assertFalse(matcher.test(createMessage(ALICE, "")));
+		assertEquals("embeds: expected an embed but there were none\n", matcher.describeMismatch(createMessage(ALICE, "")));
+		Message wrongEmbed=createMessage(ALICE, "", createEmbed("Info", "all commands", "ping", "Ping!"));
+		assertFalse(matcher.test(wrongEmbed));
+		assertEquals("embed 0 title: expected \"Help\" but was \"Info\"\n"
+				+ "embed 0 field: expected \"ping\"/\"Pong!\" but was \"ping\"/\"Ping!\"\n"
+				+ "embed 0 field: expected \"help\"/\"shows this\" but was missing\n", matcher.describeMismatch(wrongEmbed));
+	}
+	@Test
+	public void testEmbedCriteriaNeedSameEmbed() {
+		MessageMatcher matcher=new MessageMatcherBuilder().setEmbedTitle("Help").addEmbedField("ping", "Pong!").build();
+		Message split=createMessage(ALICE, "", createEmbed("Help", null), createEmbed("Other", null, "ping", "Pong!"));
+		assertFalse(matcher.test(split));
+		assertEquals("embed 0 field: expected \"ping\"/\"Pong!\" but was missing\n"
+				+ "embed 1 title: expected \"Help\" but was \"Other\"\n", matcher.describeMismatch(split));
+		assertTrue(matcher.test(createMessage(ALICE, "", createEmbed("Other", null), createEmbed("Help", null, "ping", "Pong!"))));
+	}
+	@Test
+	public void testEvaluationsAreIndependent() {
+		MessageMatcher matcher=new MessageMatcherBuilder().setContent("pong").build();
+		MessageMatcher.Evaluation first=matcher.newEvaluation();
+		MessageMatcher.Evaluation second=matcher.newEvaluation();
+		Message newest=createMessage(3, ALICE, "ping 3");
+		assertFalse(first.test(createMessage(2, ALICE, "ping 2")));
+		assertFalse(first.test(newest));
+		assertFalse(first.test(createMessage(1, ALICE, "ping 1")));
+		//testing the matcher directly does not affect any evaluation
+		assertFalse(matcher.test(createMessage(4, ALICE, "ping 4")));
+		assertTrue(first.test(createMessage(5, ALICE, "pong")));
+		assertSame(newest, first.getLastMismatch());
+		assertEquals("content: expected \"pong\" but was \"ping 3\"\n", first.describeLastMismatch());
+		assertNull(second.getLastMismatch());
+		assertEquals("no messages have been tested", second.describeLastMismatch());
+	}
+	@Test
+	public void testToString() {
+		assertEquals("MessageMatcher[]", new MessageMatcherBuilder().build().toString());
+		assertEquals("MessageMatcher[author=2, content=\"pong\", embedTitle=\"Help\", field{\"ping\"/\"Pong!\"}]",
+				new MessageMatcherBuilder().setAuthor(BOB).setContent("pong").setEmbedTitle("Help").addEmbedField("ping", "Pong!").build().toString());
+	}
+}
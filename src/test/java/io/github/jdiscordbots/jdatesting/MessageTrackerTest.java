@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: MessageTrackerTest.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.requests.RestAction;
+
+/**
+ * tests splitting deletions into requests in {@link MessageTracker} using a synthetic channel that logs the requests it creates
+ */
+public class MessageTrackerTest {
+
+	private static <T> T proxy(Class<T> type,InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+	}
+	/**
+	 * creates a channel that logs every created deletion request as <code>single:&lt;id&gt;</code> or <code>bulk:&lt;number of messages&gt;</code>
+	 * @param canManageMessages <code>true</code> if the bot has the permission to manage messages in the channel
+	 * @param requests the log of the created requests
+	 * @return the {@link TextChannel}
+	 */
+	private static TextChannel createChannel(boolean canManageMessages,List<String> requests) {
+		Member self=proxy(Member.class, (proxy,method,args)->{
+			if("hasPermission".equals(method.getName())) {
+				return canManageMessages;
+			}
+			throw new UnsupportedOperationException(method.getName());
+		});
+		Guild guild=proxy(Guild.class, (proxy,method,args)->{
+			if("getSelfMember".equals(method.getName())) {
+				return self;
+			}
+			throw new UnsupportedOperationException(method.getName());
+		});
+		return proxy(TextChannel.class, (proxy,method,args)->{
+			switch(method.getName()) {
+			case "getGuild":
+				return guild;
+			case "deleteMessageById":
+				requests.add("single:"+args[0]);
+				return proxy(method.getReturnType(), (action,actionMethod,actionArgs)->null);
+			case "deleteMessagesByIds":
+				requests.add("bulk:"+((Collection<?>)args[0]).size());
+				return proxy(method.getReturnType(), (action,actionMethod,actionArgs)->null);
+			default:
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+	private static List<String> createDeletions(boolean canManageMessages,int count) {
+		List<String> requests=new ArrayList<>();
+		long[] ids=new long[count];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i]=i+1;
+		}
+		List<RestAction<Void>> actions=MessageTracker.createDeletions(createChannel(canManageMessages, requests), ids);
+		assertEquals(requests.size(), actions.size());
+		return requests;
+	}
+	@Test
+	public void testSingleMessage() {
+		assertEquals(Arrays.asList("single:1"), createDeletions(true, 1));
+	}
+	@Test
+	public void testFullChunk() {
+		assertEquals(Arrays.asList("bulk:100"), createDeletions(true, 100));
+	}
+	@Test
+	public void testChunkWithRemainder() {
+		//bulk deletions need at least 2 messages, so the remaining message is deleted on its own
+		assertEquals(Arrays.asList("bulk:100", "single:101"), createDeletions(true, 101));
+		assertEquals(Arrays.asList("bulk:100", "bulk:2"), createDeletions(true, 102));
+	}
+	@Test
+	public void testWithoutPermission() {
+		assertEquals(Arrays.asList("single:1", "single:2", "single:3"), createDeletions(false, 3));
+	}
+	@Test
+	public void testNoMessages() {
+		assertEquals(0, createDeletions(true, 0).size());
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: OfflineDiscordTest.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageDeleteEvent;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * tests the REST interceptor and the gateway of {@link OfflineDiscord} using the bot of {@link OfflineTestBot} and raw connections
+ */
+public class OfflineDiscordTest {
+
+	private static final long TIMEOUT_SECONDS=10;
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		//the bot has identified and received READY and GUILD_CREATE
+		JDA jda=TestUtils.getJDA();
+		TextChannel tc=TestUtils.getTestingChannel();
+		assertNotNull(tc);
+		assertNotNull(jda.getGuildById(tc.getGuild().getIdLong()));
+		CompletableFuture<Message> created=new CompletableFuture<>();
+		CompletableFuture<Long> deleted=new CompletableFuture<>();
+		ListenerAdapter listener=new ListenerAdapter() {
+			@Override
+			public void onGuildMessageReceived(GuildMessageReceivedEvent event) {
+				if("offline round trip".equals(event.getMessage().getContentRaw())) {
+					created.complete(event.getMessage());
+				}
+			}
+			@Override
+			public void onGuildMessageDelete(GuildMessageDeleteEvent event) {
+				deleted.complete(event.getMessageIdLong());
+			}
+		};
+		jda.addEventListener(listener);
+		try {
+			Message sent=tc.sendMessage("offline round trip").complete();
+			assertEquals(sent.getIdLong(), created.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getIdLong());
+			assertTrue(tc.getHistory().retrievePast(10).complete().stream().anyMatch(msg->msg.getIdLong()==sent.getIdLong()));
+			assertEquals("offline round trip", tc.retrieveMessageById(sent.getIdLong()).complete().getContentRaw());
+			sent.delete().complete();
+			assertEquals(sent.getIdLong(), (long) deleted.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+			try {
+				tc.retrieveMessageById(sent.getIdLong()).complete();
+				fail("the deleted message can still be retrieved");
+			}catch(ErrorResponseException e) {
+				assertEquals(ErrorResponse.UNKNOWN_MESSAGE, e.getErrorResponse());
+			}
+		}finally {
+			jda.removeEventListener(listener);
+		}
+	}
+	@Test
+	public void testReplyToCommand() {
+		TestUtils.sendCommand("echo offline reply");
+		assertNotNull(TestUtils.getMessage("offline reply"));
+	}
+	@Test
+	public void testUnknownTokenIsUnauthorized() throws IOException {
+		TestUtils.getJDA();
+		OkHttpClient client=OfflineDiscord.getInstance().createHttpClient();
+		assertEquals(200, getSelfUser(client, "Bot registered"));
+		assertEquals(200, getSelfUser(client, "Bot registered"));
+		assertEquals(401, getSelfUser(client, "Bot unknown"));
+	}
+	private static int getSelfUser(OkHttpClient client,String token) throws IOException {
+		Request request=new Request.Builder()
+				.url("https://discord.com/api/v6/users/@me")
+				.header("Authorization", token)
+				.build();
+		try(Response response=client.newCall(request).execute()){
+			return response.code();
+		}
+	}
+	@Test
+	public void testIdentifyWithUnknownToken() throws IOException {
+		try(Socket socket=connect()){
+			DataOutputStream out=new DataOutputStream(socket.getOutputStream());
+			DataInputStream in=new DataInputStream(socket.getInputStream());
+			writeText(out, DataObject.empty().put("op", 2).put("d", DataObject.empty().put("token", "unknown")).toString());
+			assertEquals(4004, readCloseCode(in));
+		}
+	}
+	@Test
+	public void testOversizedFrameIsRejected() throws IOException {
+		try(Socket socket=connect()){
+			DataOutputStream out=new DataOutputStream(socket.getOutputStream());
+			DataInputStream in=new DataInputStream(socket.getInputStream());
+			//announce a frame of 2 GiB without sending it
+			out.write(0x81);
+			out.write(0x80|127);
+			out.writeLong(1L<<31);
+			out.writeInt(0);
+			out.flush();
+			assertEquals(1009, readCloseCode(in));
+		}
+	}
+	/**
+	 * opens a WebSocket connection to the gateway and reads the HELLO payload
+	 * @return the connected {@link Socket}
+	 * @throws IOException if the connection fails
+	 */
+	private static Socket connect() throws IOException {
+		TestUtils.getJDA();
+		URI uri=URI.create(OfflineDiscord.getInstance().getGatewayUrl());
+		Socket socket=new Socket(uri.getHost(), uri.getPort());
+		socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+		socket.getOutputStream().write(("GET /?v=6&encoding=json HTTP/1.1\r\n"
+				+ "Host: "+uri.getHost()+"\r\n"
+				+ "Upgrade: websocket\r\n"
+				+ "Connection: Upgrade\r\n"
+				+ "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+				+ "Sec-WebSocket-Version: 13\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		DataInputStream in=new DataInputStream(socket.getInputStream());
+		int newlines=0;
+		while(newlines<2) {
+			int c=in.read();
+			if(c=='\n') {
+				newlines++;
+			}else if(c!='\r') {
+				newlines=0;
+			}
+		}
+		assertEquals(1, readFrame(in)[0]);
+		return socket;
+	}
+	private static void writeText(DataOutputStream out,String text) throws IOException {
+		byte[] payload=text.getBytes(StandardCharsets.UTF_8);
+		out.write(0x81);
+		if(payload.length<126) {
+			out.write(0x80|payload.length);
+		}else {
+			out.write(0x80|126);
+			out.writeShort(payload.length);
+		}
+		//a zero mask leaves the payload unchanged
+		out.writeInt(0);
+		out.write(payload);
+		out.flush();
+	}
+	private static int readCloseCode(DataInputStream in) throws IOException {
+		byte[] frame=readFrame(in);
+		assertEquals(8, frame[0]);
+		return ((frame[1]&0xFF)<<8)|(frame[2]&0xFF);
+	}
+	/**
+	 * reads an unmasked frame sent by the gateway
+	 * @param in the input stream of the connection
+	 * @return the opcode followed by the payload
+	 * @throws IOException if the frame cannot be read
+	 */
+	private static byte[] readFrame(DataInputStream in) throws IOException {
+		int opcode=in.readUnsignedByte()&0x0F;
+		long len=in.readUnsignedByte()&0x7F;
+		if(len==126) {
+			len=in.readUnsignedShort();
+		}else if(len==127) {
+			len=in.readLong();
+		}
+		byte[] frame=new byte[(int) len+1];
+		frame[0]=(byte) opcode;
+		in.readFully(frame, 1, (int) len);
+		return frame;
+	}
+}
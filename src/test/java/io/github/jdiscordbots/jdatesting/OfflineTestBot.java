@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: OfflineTestBot.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.login.LoginException;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.events.message.guild.GuildMessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+
+/**
+ * <i>jda-factory-class</i> of the tests<br>
+ * The bot connects to {@link OfflineDiscord} and knows the following commands:
+ * <ul>
+ * 	<li><code>!echo &lt;text&gt;</code> replies with the text</li>
+ * 	<li><code>!later &lt;milliseconds&gt; &lt;text&gt;</code> replies with the text after a delay</li>
+ * </ul>
+ */
+public final class OfflineTestBot extends ListenerAdapter {
+
+	private OfflineTestBot() {
+		//only used as listener
+	}
+	/**
+	 * creates the {@link JDA} instance connected to the offline stand-in
+	 * @return the {@link JDA} instance
+	 * @throws LoginException if JDA cannot log in
+	 * @throws InterruptedException if the current thread is interrupted while waiting until JDA is ready
+	 */
+	public static JDA createJDA() throws LoginException, InterruptedException {
+		return OfflineDiscord.configure(new JDABuilder("test")).addEventListeners(new OfflineTestBot()).build().awaitReady();
+	}
+	@Override
+	public void onGuildMessageReceived(GuildMessageReceivedEvent event) {
+		String content=event.getMessage().getContentRaw();
+		if(content.startsWith("!echo ")) {
+			event.getChannel().sendMessage(content.substring("!echo ".length())).queue();
+		}else if(content.startsWith("!later ")) {
+			String[] args=content.substring("!later ".length()).split(" ", 2);
+			event.getChannel().sendMessage(args[1]).queueAfter(Long.parseLong(args[0]), TimeUnit.MILLISECONDS);
+		}
+	}
+}
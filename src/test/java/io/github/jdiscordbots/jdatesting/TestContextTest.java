@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) JDiscordBots 2020
+ * File: TestContextTest.java
+ * Project: jda-testing-system
+ * Licensed under Boost Software License 1.0
+ */
+package io.github.jdiscordbots.jdatesting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import net.dv8tion.jda.api.entities.Message;
+
+/**
+ * tests correlating commands with their replies against the bot of {@link OfflineTestBot}<br>
+ * Every test awaits all replies it causes, so the replies do not affect other tests.
+ */
+public class TestContextTest {
+
+	private static Predicate<Message> startsWith(String prefix){
+		return msg->msg.getContentRaw().startsWith(prefix);
+	}
+	private static long getCount(String command) {
+		LatencyHistogram histogram=TestUtils.getLatencyStatistics().getHistogram(command);
+		return histogram==null?0:histogram.getCount();
+	}
+	@Test
+	public void testPipelinedCommands() {
+		Message first=TestUtils.sendCommand("echo pipelined 1");
+		Message second=TestUtils.sendCommand("echo pipelined 2");
+		//both replies fulfill both criteria, they need to be assigned in the order they have been sent
+		Message firstReply=TestUtils.getReply(first, startsWith("pipelined "));
+		Message secondReply=TestUtils.getReply(second, startsWith("pipelined "));
+		assertNotNull(firstReply);
+		assertNotNull(secondReply);
+		assertEquals("pipelined 1", firstReply.getContentRaw());
+		assertEquals("pipelined 2", secondReply.getContentRaw());
+	}
+	@Test
+	public void testPipelinedCommandsAsync() {
+		Message first=TestUtils.sendCommand("echo pipelined async 1");
+		Message second=TestUtils.sendCommand("echo pipelined async 2");
+		Message firstReply=TestUtils.getReplyAsync(first, startsWith("pipelined async ")).join();
+		Message secondReply=TestUtils.getReplyAsync(second, startsWith("pipelined async ")).join();
+		assertNotNull(firstReply);
+		assertNotNull(secondReply);
+		assertEquals("pipelined async 1", firstReply.getContentRaw());
+		assertEquals("pipelined async 2", secondReply.getContentRaw());
+	}
+	@Test
+	public void testExpectReplyIgnoresCommand() {
+		//the command itself is sent by the bot account and fulfills the criteria, too
+		Message reply=TestUtils.expectReply("echo ignore the command", msg->true).join();
+		assertNotNull(reply);
+		assertEquals("ignore the command", reply.getContentRaw());
+	}
+	@Test
+	public void testRepliesAreNotShared() {
+		CompletableFuture<Message> first=TestUtils.expectReply("echo shared", startsWith("shared"));
+		CompletableFuture<Message> second=TestUtils.expectReply("echo shared", startsWith("shared"));
+		Message firstReply=first.join();
+		Message secondReply=second.join();
+		assertNotNull(firstReply);
+		assertNotNull(secondReply);
+		assertTrue(firstReply.getIdLong()!=secondReply.getIdLong());
+	}
+	@Test
+	public void testLatencyIsRecordedForAwaitedCommand() {
+		long laterCount=getCount("later");
+		long echoCount=getCount("echo");
+		Message slow=TestUtils.sendCommand("later 300 latency slow");
+		Message fast=TestUtils.sendCommand("echo latency fast");
+		assertNotNull(TestUtils.getReply(slow, startsWith("latency slow")));
+		//the reply belongs to the command that has been sent first, not to the last one
+		assertEquals(laterCount+1, getCount("later"));
+		assertEquals(echoCount, getCount("echo"));
+		assertTrue(TestUtils.getLatencyStatistics().getHistogram("later").getMax().toMillis()>=300);
+		assertNotNull(TestUtils.getReply(fast, startsWith("latency fast")));
+		assertEquals(echoCount+1, getCount("echo"));
+	}
+}